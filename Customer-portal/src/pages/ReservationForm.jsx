@@ -61,7 +61,7 @@ const ReservationForm = () => {
       setSubmitting(true);
       const reservationId = Date.now(); // Generate unique reservation ID
       
-      await stallService.reserveStall(stallId, userId, reservationId);
+      await stallService.reserveStall(stallId, reservationId);
       
       toast.success('Stall reserved successfully!');
       navigate('/my-reservations');
@@ -35,8 +35,8 @@ export const genreService = {
   },
 
   // Reserve stall
-  reserveStall: async (stallId, userId, reservationId) => {
-    const response = await api.post(`/stalls/${stallId}/reserve?userId=${userId}&reservationId=${reservationId}`);
+  reserveStall: async (stallId, reservationId) => {
+    const response = await api.post(`/stalls/${stallId}/reserve?reservationId=${reservationId}`);
     return response.data;
   },
 
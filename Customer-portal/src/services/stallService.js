@@ -38,8 +38,8 @@ export const stallService = {
   },
 
   // Reserve stall
-  reserveStall: async (stallId, userId, reservationId) => {
-    const response = await api.post(`/stalls/${stallId}/reserve?userId=${userId}&reservationId=${reservationId}`);
+  reserveStall: async (stallId, reservationId) => {
+    const response = await api.post(`/stalls/${stallId}/reserve?reservationId=${reservationId}`);
     return response.data;
   },
 
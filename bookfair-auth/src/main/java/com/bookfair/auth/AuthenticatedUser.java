@@ -0,0 +1,19 @@
+package com.bookfair.auth;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * The caller of a request, taken from a token issued by user-service. {@code userId} is the
+ * user-service id as a string; {@code role} is VENDOR or EMPLOYEE.
+ */
+public record AuthenticatedUser(String userId, String username, String role) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public boolean hasRole(String expected) {
+        return expected.equalsIgnoreCase(role);
+    }
+}
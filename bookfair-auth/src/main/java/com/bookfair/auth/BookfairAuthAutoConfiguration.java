@@ -0,0 +1,44 @@
+package com.bookfair.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers a {@link JwtVerifier} keyed by {@code jwt.secret}, which must match user-service, and
+ * for servlet applications a {@link JwtAuthenticationFilter} for the service's security chain.
+ */
+@AutoConfiguration
+public class BookfairAuthAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtVerifier jwtVerifier(@Value("${jwt.secret}") String secret,
+                                   @Value("${jwt.verified-cache.max-entries:10000}") int cacheMaxEntries) {
+        return new JwtVerifier(secret, cacheMaxEntries);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class ServletFilterConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public JwtAuthenticationFilter jwtAuthenticationFilter(JwtVerifier jwtVerifier) {
+            return new JwtAuthenticationFilter(jwtVerifier);
+        }
+
+        // Runs inside the security chain only, not a second time as a plain servlet filter
+        @Bean
+        public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration(
+                JwtAuthenticationFilter filter) {
+            FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+            registration.setEnabled(false);
+            return registration;
+        }
+    }
+}
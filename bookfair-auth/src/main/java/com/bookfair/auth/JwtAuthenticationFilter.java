@@ -0,0 +1,41 @@
+package com.bookfair.auth;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Authenticates a request from its bearer token. A missing or invalid token leaves the request
+ * anonymous; the service's security rules decide whether that is allowed.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private final JwtVerifier verifier;
+
+    public JwtAuthenticationFilter(JwtVerifier verifier) {
+        this.verifier = verifier;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String token = JwtVerifier.bearerToken(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            verifier.verify(token).ifPresent(user -> {
+                UsernamePasswordAuthenticationToken authentication = verifier.authenticationFor(user);
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            });
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,122 @@
+package com.bookfair.auth;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verifies user-service tokens in-process with the shared HMAC key, so a service can
+ * authenticate a request without calling user-service. The key and parser are built once, and a
+ * token's signature is checked once: later requests with the same token are answered from a
+ * bounded concurrent cache, keyed by the token's SHA-256, until the token expires.
+ * <p>
+ * Revocation is enforced by user-service only. Logout, a password change or a role change bumps
+ * the user's token version there, but the token's {@code ver} claim is not checked here, so
+ * downstream services keep accepting an otherwise valid token, with the role it was issued
+ * with, until it expires. Keep {@code jwt.expiration} short enough for that window.
+ */
+public class JwtVerifier {
+
+    private final JwtParser parser;
+    private final ConcurrentHashMap<String, CachedUser> verified = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final int cacheMaxEntries;
+
+    public JwtVerifier(String secret, int cacheMaxEntries) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
+    /**
+     * The user a token was issued to, or empty when the token is malformed, forged, expired or
+     * lacks the userId and role claims.
+     */
+    public Optional<AuthenticatedUser> verify(String token) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+        CachedUser cached = verified.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                return Optional.of(cached.user());
+            }
+            verified.remove(key, cached);
+        }
+
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        Object userId = claims.get("userId");
+        String role = claims.get("role", String.class);
+        if (claims.getSubject() == null || userId == null || role == null || claims.getExpiration() == null) {
+            return Optional.empty();
+        }
+
+        AuthenticatedUser user = new AuthenticatedUser(userId.toString(), claims.getSubject(), role);
+        verified.put(key, new CachedUser(user, claims.getExpiration().getTime()));
+        if (verified.size() > cacheMaxEntries) {
+            evict(now);
+        }
+        return Optional.of(user);
+    }
+
+    // Drops expired entries, then arbitrary ones until back under the bound; one thread at a time, others skip
+    private void evict(long now) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            verified.values().removeIf(entry -> entry.expiresAt() <= now);
+            Iterator<String> keys = verified.keySet().iterator();
+            while (verified.size() > cacheMaxEntries && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public UsernamePasswordAuthenticationToken authenticationFor(AuthenticatedUser user) {
+        return new UsernamePasswordAuthenticationToken(user, null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + user.role())));
+    }
+
+    // The bearer value without its prefix, or null when the header is not a bearer token
+    public static String bearerToken(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        return authorizationHeader.substring(7);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record CachedUser(AuthenticatedUser user, long expiresAt) {
+    }
+}
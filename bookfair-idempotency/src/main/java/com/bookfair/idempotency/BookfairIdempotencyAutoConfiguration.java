@@ -0,0 +1,35 @@
+package com.bookfair.idempotency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the {@link IdempotencyStore} sized by {@code idempotency.ttl-seconds} and
+ * {@code idempotency.max-entries}, and when Reactor is present a {@link ReactiveIdempotencyStore}
+ * over it.
+ */
+@AutoConfiguration
+public class BookfairIdempotencyAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdempotencyStore idempotencyStore(@Value("${idempotency.ttl-seconds:600}") long ttlSeconds,
+                                             @Value("${idempotency.max-entries:10000}") int maxEntries) {
+        return new IdempotencyStore(ttlSeconds, maxEntries);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "reactor.core.publisher.Mono")
+    static class ReactiveConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public ReactiveIdempotencyStore reactiveIdempotencyStore(IdempotencyStore idempotencyStore) {
+            return new ReactiveIdempotencyStore(idempotencyStore);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.bookfair.idempotency;
+
+/**
+ * An Idempotency-Key was sent again with a different request than the one it was first used
+ * for. Services answer it with 422 Unprocessable Entity.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,122 @@
+package com.bookfair.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of requests carrying an Idempotency-Key. A retry with the same key
+ * gets the original result without running the action again; a retry that arrives while the
+ * first attempt is still running waits for it. Each key is bound to a fingerprint of the
+ * request it was first used with, and reusing it for a different request is rejected with
+ * {@link IdempotencyKeyReusedException}. Failed attempts are forgotten so they can be
+ * retried. Entries expire after the TTL and the oldest are dropped beyond the size bound.
+ */
+public class IdempotencyStore {
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    public IdempotencyStore(long ttlSeconds, int maxEntries) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * SHA-256 of the request, for callers that fingerprint a serialized body
+     */
+    public static String fingerprint(byte[] request) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(request));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static String fingerprint(String request) {
+        return fingerprint(request.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, String fingerprint, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CompletableFuture<Object> existing = register(key, fingerprint, result);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            T value = action.get();
+            result.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Errors too, or a duplicate waiting on this key would block forever
+            forget(key, result);
+            result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Returns the in-flight or finished result for the key, or null once this caller owns it
+    synchronized CompletableFuture<Object> register(String key, String fingerprint,
+                                                            CompletableFuture<Object> result) {
+        long now = System.currentTimeMillis();
+        evictExpired(now);
+
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (!entry.fingerprint().equals(fingerprint)) {
+                throw new IdempotencyKeyReusedException(
+                        "Idempotency-Key was already used with a different request");
+            }
+            return entry.result();
+        }
+        entries.put(key, new Entry(result, fingerprint, now + ttlMillis));
+        if (entries.size() > maxEntries) {
+            Iterator<Entry> oldest = entries.values().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        return null;
+    }
+
+    synchronized void forget(String key, CompletableFuture<Object> result) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.result() == result) {
+            entries.remove(key);
+        }
+    }
+
+    // Entries are kept in insertion order, so expired ones are always at the head
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext() && iterator.next().expiresAt() <= now) {
+            iterator.remove();
+        }
+    }
+
+    private record Entry(CompletableFuture<Object> result, String fingerprint, long expiresAt) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.bookfair.idempotency;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * {@link IdempotencyStore#execute} for reactive handlers: a duplicate waits for the first
+ * attempt without blocking the event loop. Shares the entries of the store it wraps.
+ * <p>
+ * The first attempt runs detached from its caller: a client that disconnects does not cancel
+ * it, and its entry is settled only when the action itself finishes, so a retry with the same
+ * key waits for that outcome instead of running the action a second time.
+ */
+public class ReactiveIdempotencyStore {
+
+    private final IdempotencyStore store;
+
+    public ReactiveIdempotencyStore(IdempotencyStore store) {
+        this.store = store;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String key, String fingerprint, Supplier<Mono<T>> action) {
+        if (key == null || key.isBlank()) {
+            return Mono.defer(action);
+        }
+
+        return Mono.deferContextual(context -> {
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            CompletableFuture<Object> existing = store.register(key, fingerprint, result);
+            if (existing == null) {
+                Mono.defer(action)
+                        .contextWrite(context)
+                        .subscribe(result::complete, e -> {
+                            store.forget(key, result);
+                            result.completeExceptionally(e);
+                        }, () -> result.complete(null));
+                existing = result;
+            }
+            // An empty outcome is remembered as null and replayed as an empty Mono. Cancelling a
+            // waiter must not cancel the shared result other requests are waiting on
+            return Mono.fromFuture(existing, true).map(value -> (T) value);
+        });
+    }
+}
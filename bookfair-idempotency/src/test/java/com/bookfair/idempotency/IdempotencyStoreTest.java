@@ -0,0 +1,150 @@
+package com.bookfair.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private final IdempotencyStore store = new IdempotencyStore(600, 100);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    void replaysTheFirstResultForADuplicate() {
+        String fingerprint = IdempotencyStore.fingerprint("stall=1");
+
+        assertThat(store.execute("key-1", fingerprint, () -> "created-" + runs.incrementAndGet())).isEqualTo("created-1");
+        assertThat(store.execute("key-1", fingerprint, () -> "created-" + runs.incrementAndGet())).isEqualTo("created-1");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void runsEveryRequestWithoutAKey() {
+        store.execute(null, "f", runs::incrementAndGet);
+        store.execute(" ", "f", runs::incrementAndGet);
+
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void rejectsAKeyReusedForADifferentRequest() {
+        store.execute("key-1", IdempotencyStore.fingerprint("stall=1"), runs::incrementAndGet);
+
+        assertThatThrownBy(() -> store.execute("key-1", IdempotencyStore.fingerprint("stall=2"), runs::incrementAndGet))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void forgetsAFailedAttemptSoItCanBeRetried() {
+        assertThatThrownBy(() -> store.execute("key-1", "f", () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("Stall is already reserved");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(store.execute("key-1", "f", () -> "retried-" + runs.incrementAndGet())).isEqualTo("retried-2");
+    }
+
+    @Test
+    void forgetsAttemptsThatFailWithAnError() {
+        assertThatThrownBy(() -> store.execute("key-1", "f", () -> {
+            throw new AssertionError("boom");
+        })).isInstanceOf(AssertionError.class);
+
+        assertThat(store.execute("key-1", "f", () -> "retried")).isEqualTo("retried");
+    }
+
+    @Test
+    void duplicateWaitsForTheAttemptInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> store.execute("key-1", "f", () -> {
+                started.countDown();
+                await(release);
+                return "created-" + runs.incrementAndGet();
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<String> duplicate = executor.submit(() -> store.execute("key-1", "f", () -> "duplicate-ran"));
+
+            Thread.sleep(100);
+            assertThat(duplicate.isDone()).isFalse();
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("created-1");
+            assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo("created-1");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void duplicateWaitingOnAFailedAttemptSeesTheSameFailure() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = executor.submit(() -> store.execute("key-1", "f", () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("Stall is already reserved");
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<Object> duplicate = executor.submit(() -> store.execute("key-1", "f", () -> "duplicate-ran"));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> duplicate.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class)
+                    .hasRootCauseMessage("Stall is already reserved");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void expiredEntriesRunAgain() {
+        IdempotencyStore expiring = new IdempotencyStore(0, 100);
+
+        expiring.execute("key-1", "f", runs::incrementAndGet);
+        expiring.execute("key-1", "f", runs::incrementAndGet);
+
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void dropsTheOldestKeyBeyondTheSizeBound() {
+        IdempotencyStore bounded = new IdempotencyStore(600, 2);
+        bounded.execute("key-1", "f", runs::incrementAndGet);
+        bounded.execute("key-2", "f", runs::incrementAndGet);
+        bounded.execute("key-3", "f", runs::incrementAndGet);
+
+        assertThat(bounded.execute("key-3", "f", runs::incrementAndGet)).isEqualTo(3);
+        assertThat(bounded.execute("key-1", "f", runs::incrementAndGet)).isEqualTo(4);
+    }
+
+    @Test
+    void fingerprintsAreStablePerRequest() {
+        assertThat(IdempotencyStore.fingerprint("1:7:r-9")).isEqualTo(IdempotencyStore.fingerprint("1:7:r-9".getBytes()));
+        assertThat(IdempotencyStore.fingerprint("1:7:r-9")).isNotEqualTo(IdempotencyStore.fingerprint("1:7:r-8"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.bookfair.idempotency;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReactiveIdempotencyStoreTest {
+
+    private final IdempotencyStore store = new IdempotencyStore(600, 100);
+    private final ReactiveIdempotencyStore reactiveStore = new ReactiveIdempotencyStore(store);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    void replaysTheFirstResultForADuplicate() {
+        assertThat(reactiveStore.execute("key-1", "f", this::create).block()).isEqualTo("created-1");
+        assertThat(reactiveStore.execute("key-1", "f", this::create).block()).isEqualTo("created-1");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void replaysAnEmptyResultAsEmpty() {
+        assertThat(reactiveStore.execute("key-1", "f", Mono::empty).block()).isNull();
+        assertThat(reactiveStore.execute("key-1", "f", this::create).blockOptional()).isEmpty();
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void duplicateWaitsForTheAttemptInFlight() {
+        Sinks.One<String> first = Sinks.one();
+        CompletableFuture<String> original = reactiveStore.execute("key-1", "f", first::asMono).toFuture();
+        CompletableFuture<String> duplicate = reactiveStore.execute("key-1", "f", this::create).toFuture();
+        assertThat(duplicate).isNotDone();
+
+        first.tryEmitValue("created-first");
+        assertThat(original.join()).isEqualTo("created-first");
+        assertThat(duplicate.join()).isEqualTo("created-first");
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void forgetsAFailedAttemptSoItCanBeRetried() {
+        Mono<String> failing = reactiveStore.execute("key-1", "f",
+                () -> Mono.error(new IllegalStateException("Stall is already reserved")));
+
+        assertThatThrownBy(failing::block).isInstanceOf(IllegalStateException.class);
+        assertThat(reactiveStore.execute("key-1", "f", this::create).block()).isEqualTo("created-1");
+    }
+
+    @Test
+    void keepsRunningAnAttemptWhoseCallerWentAway() {
+        Sinks.One<String> first = Sinks.one();
+        reactiveStore.execute("key-1", "f", first::asMono).subscribe().dispose();
+        CompletableFuture<String> retry = reactiveStore.execute("key-1", "f", this::create).toFuture();
+        assertThat(retry).isNotDone();
+
+        first.tryEmitValue("created-first");
+        assertThat(retry.join()).isEqualTo("created-first");
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void aWaiterGoingAwayDoesNotDisturbTheOthers() {
+        Sinks.One<String> first = Sinks.one();
+        CompletableFuture<String> original = reactiveStore.execute("key-1", "f", first::asMono).toFuture();
+        reactiveStore.execute("key-1", "f", this::create).subscribe().dispose();
+
+        first.tryEmitValue("created-first");
+        assertThat(original.join()).isEqualTo("created-first");
+        assertThat(reactiveStore.execute("key-1", "f", this::create).block()).isEqualTo("created-first");
+    }
+
+    @Test
+    void sharesKeysWithTheBlockingStore() {
+        store.execute("key-1", IdempotencyStore.fingerprint("stall=1"), () -> "blocking");
+
+        assertThat(reactiveStore.execute("key-1", IdempotencyStore.fingerprint("stall=1"), this::create).block())
+                .isEqualTo("blocking");
+        assertThatThrownBy(() -> reactiveStore.execute("key-1", IdempotencyStore.fingerprint("stall=2"), this::create).block())
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+    }
+
+    @Test
+    void doesNothingUntilSubscribed() {
+        reactiveStore.execute("key-1", "f", this::create);
+
+        assertThat(reactiveStore.execute("key-1", "f", () -> Mono.just("second")).block()).isEqualTo("second");
+    }
+
+    private Mono<String> create() {
+        return Mono.fromSupplier(() -> "created-" + runs.incrementAndGet());
+    }
+}
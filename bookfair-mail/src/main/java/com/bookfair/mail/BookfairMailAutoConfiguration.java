@@ -0,0 +1,47 @@
+package com.bookfair.mail;
+
+import com.bookfair.mail.smtp.PooledJavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.Properties;
+
+/**
+ * Registers a {@link PooledJavaMailSender} configured from the usual {@code spring.mail.*}
+ * properties and sized by {@code mail.pool.max-connections},
+ * {@code mail.pool.max-messages-per-connection} and {@code mail.pool.idle-timeout-ms}. It takes
+ * the place of Boot's own sender, which backs off when a JavaMailSender already exists.
+ */
+@AutoConfiguration(before = MailSenderAutoConfiguration.class)
+@EnableConfigurationProperties(MailProperties.class)
+public class BookfairMailAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(JavaMailSender.class)
+    public PooledJavaMailSender javaMailSender(MailProperties properties,
+                                               @Value("${mail.pool.max-connections:4}") int maxConnections,
+                                               @Value("${mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                                               @Value("${mail.pool.idle-timeout-ms:60000}") long idleTimeoutMs) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(maxConnections, maxMessagesPerConnection, idleTimeoutMs);
+        sender.setHost(properties.getHost());
+        if (properties.getPort() != null) {
+            sender.setPort(properties.getPort());
+        }
+        sender.setUsername(properties.getUsername());
+        sender.setPassword(properties.getPassword());
+        sender.setProtocol(properties.getProtocol());
+        if (properties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(properties.getDefaultEncoding().name());
+        }
+        Properties javaMailProperties = new Properties();
+        javaMailProperties.putAll(properties.getProperties());
+        sender.setJavaMailProperties(javaMailProperties);
+        return sender;
+    }
+}
@@ -0,0 +1,173 @@
+package com.bookfair.mail.smtp;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JavaMailSender that keeps up to maxConnections authenticated SMTP connections open and reuses
+ * them across sends, so a message no longer pays for the connect, STARTTLS and AUTH round
+ * trips. All messages of a batch send go over one connection. A connection is retired after
+ * maxMessagesPerConnection messages, after idling longer than idleTimeoutMillis, or when the
+ * server drops it; its throughput and failure count are logged when it closes.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    // Connections idle for longer than this get a NOOP before reuse
+    private static final long VALIDATE_AFTER_MILLIS = 5000;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    private final int maxMessagesPerConnection;
+    private final long idleTimeoutMillis;
+
+    public PooledJavaMailSender(int maxConnections, int maxMessagesPerConnection, long idleTimeoutMillis) {
+        this.permits = new Semaphore(maxConnections, true);
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        acquirePermit();
+        PooledConnection connection = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                if (connection == null) {
+                    try {
+                        connection = checkout();
+                    } catch (AuthenticationFailedException ex) {
+                        throw new MailAuthenticationException(ex);
+                    } catch (MessagingException ex) {
+                        // Without a connection none of the remaining messages can go out
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            failedMessages.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], ex);
+                        }
+                        break;
+                    }
+                }
+
+                try {
+                    connection.send(mimeMessages[i]);
+                } catch (MessagingException ex) {
+                    failedMessages.put(originalMessages != null ? originalMessages[i] : mimeMessages[i], ex);
+                    connection.failures++;
+                    if (!connection.transport.isConnected()) {
+                        retire(connection);
+                        connection = null;
+                        continue;
+                    }
+                }
+
+                if (connection.sent + connection.failures >= maxMessagesPerConnection) {
+                    retire(connection);
+                    connection = null;
+                }
+            }
+        } finally {
+            if (connection != null) {
+                connection.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(connection);
+            }
+            permits.release();
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            retire(connection);
+        }
+    }
+
+    private void acquirePermit() {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while waiting for an SMTP connection", e);
+        }
+    }
+
+    // Most recently used first, so surplus connections age out at the tail
+    private PooledConnection checkout() throws MessagingException {
+        long now = System.currentTimeMillis();
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            long idleFor = now - connection.lastUsed;
+            if (idleFor < VALIDATE_AFTER_MILLIS
+                    || idleFor < idleTimeoutMillis && connection.transport.isConnected()) {
+                return connection;
+            }
+            retire(connection);
+        }
+
+        connection = new PooledConnection(connectionIds.incrementAndGet(), connectTransport());
+        System.out.println("📬 SMTP connection #" + connection.id + " opened to " + getHost());
+        return connection;
+    }
+
+    private void retire(PooledConnection connection) {
+        try {
+            connection.transport.close();
+        } catch (MessagingException ignored) {
+            // Already closed by the server
+        }
+        double seconds = Math.max(1, System.currentTimeMillis() - connection.openedAt) / 1000.0;
+        System.out.printf("📪 SMTP connection #%d closed: %d sent, %d failed, %.2f msg/s%n",
+                connection.id, connection.sent, connection.failures, connection.sent / seconds);
+    }
+
+    private static final class PooledConnection {
+        private final int id;
+        private final Transport transport;
+        private final long openedAt = System.currentTimeMillis();
+        private long lastUsed = openedAt;
+        private int sent;
+        private int failures;
+
+        private PooledConnection(int id, Transport transport) {
+            this.id = id;
+            this.transport = transport;
+        }
+
+        // Same preparation as JavaMailSenderImpl.doSend
+        private void send(MimeMessage mimeMessage) throws MessagingException {
+            if (mimeMessage.getSentDate() == null) {
+                mimeMessage.setSentDate(new Date());
+            }
+            String messageId = mimeMessage.getMessageID();
+            mimeMessage.saveChanges();
+            if (messageId != null) {
+                // Preserve explicitly specified message id...
+                mimeMessage.setHeader("Message-ID", messageId);
+            }
+            Address[] addresses = mimeMessage.getAllRecipients();
+            transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+            sent++;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.bookfair.mail.template;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An email body compiled once into literal, variable and section segments, so rendering is a
+ * single pass of appends with no parsing. Syntax:
+ * <ul>
+ *   <li>{@code {{name}}} - the value of {@code name}, empty when missing</li>
+ *   <li>{@code {{name|fallback}}} - the value, or {@code fallback} when missing</li>
+ *   <li>{@code {{#name}}...{{/name}}} - rendered only when {@code name} has a non-empty value</li>
+ * </ul>
+ * Values are HTML-escaped in HTML templates.
+ */
+public final class EmailTemplate {
+
+    private final Segment[] segments;
+    private final int estimatedLength;
+
+    private EmailTemplate(Segment[] segments, int estimatedLength) {
+        this.segments = segments;
+        this.estimatedLength = estimatedLength;
+    }
+
+    public static EmailTemplate compile(String source, boolean html) {
+        Deque<List<Segment>> parents = new ArrayDeque<>();
+        Deque<String> openSections = new ArrayDeque<>();
+        List<Segment> current = new ArrayList<>();
+        int literalLength = 0;
+        int position = 0;
+
+        while (position < source.length()) {
+            int start = source.indexOf("{{", position);
+            if (start < 0) {
+                start = source.length();
+            }
+            if (start > position) {
+                current.add(new Literal(source.substring(position, start)));
+                literalLength += start - position;
+            }
+            if (start == source.length()) {
+                break;
+            }
+
+            int end = source.indexOf("}}", start + 2);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed tag at offset " + start);
+            }
+            String tag = source.substring(start + 2, end).trim();
+            position = end + 2;
+            if (tag.startsWith("#") || tag.startsWith("/")) {
+                position = skipStandaloneLineBreak(source, start, position);
+            }
+
+            if (tag.startsWith("#")) {
+                parents.push(current);
+                openSections.push(tag.substring(1).trim());
+                current = new ArrayList<>();
+            } else if (tag.startsWith("/")) {
+                String name = tag.substring(1).trim();
+                if (!name.equals(openSections.peek())) {
+                    throw new IllegalArgumentException("Unexpected {{/" + name + "}} at offset " + start);
+                }
+                Section section = new Section(openSections.pop(), current.toArray(new Segment[0]));
+                current = parents.pop();
+                current.add(section);
+            } else {
+                int bar = tag.indexOf('|');
+                String name = bar < 0 ? tag : tag.substring(0, bar).trim();
+                String fallback = bar < 0 ? "" : tag.substring(bar + 1).trim();
+                current.add(new Variable(name, fallback, html));
+            }
+        }
+
+        if (!openSections.isEmpty()) {
+            throw new IllegalArgumentException("Unclosed {{#" + openSections.peek() + "}}");
+        }
+        return new EmailTemplate(current.toArray(new Segment[0]), literalLength + 256);
+    }
+
+    // A section tag alone on its line should not leave an empty line behind
+    private static int skipStandaloneLineBreak(String source, int tagStart, int tagEnd) {
+        if (tagStart > 0 && source.charAt(tagStart - 1) != '\n') {
+            return tagEnd;
+        }
+        if (source.startsWith("\r\n", tagEnd)) {
+            return tagEnd + 2;
+        }
+        return source.startsWith("\n", tagEnd) ? tagEnd + 1 : tagEnd;
+    }
+
+    public String render(Map<String, ?> values) {
+        StringBuilder out = new StringBuilder(estimatedLength);
+        render(segments, values, out);
+        return out.toString();
+    }
+
+    private static void render(Segment[] segments, Map<String, ?> values, StringBuilder out) {
+        for (Segment segment : segments) {
+            if (segment instanceof Literal literal) {
+                out.append(literal.text());
+            } else if (segment instanceof Variable variable) {
+                Object value = values.get(variable.name());
+                String text = value == null ? variable.fallback() : value.toString();
+                if (variable.escape()) {
+                    appendEscaped(text, out);
+                } else {
+                    out.append(text);
+                }
+            } else if (segment instanceof Section section) {
+                Object value = values.get(section.name());
+                if (value != null && !"".equals(value)) {
+                    render(section.body(), values, out);
+                }
+            }
+        }
+    }
+
+    private static void appendEscaped(String text, StringBuilder out) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private sealed interface Segment permits Literal, Variable, Section {
+    }
+
+    private record Literal(String text) implements Segment {
+    }
+
+    private record Variable(String name, String fallback, boolean escape) implements Segment {
+    }
+
+    private record Section(String name, Segment[] body) implements Segment {
+    }
+}
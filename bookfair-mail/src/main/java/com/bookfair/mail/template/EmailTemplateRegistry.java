@@ -0,0 +1,123 @@
+package com.bookfair.mail.template;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Email templates compiled at startup from {@code classpath:email-templates/}. When an override
+ * directory is given, files there override the bundled ones by name and are recompiled when they
+ * change, so copy can be edited without a redeploy. A template that fails to compile is reported
+ * and the previous version stays in use. Each service declares it as a bean with its own
+ * properties and calls {@link #shutdown()} on close.
+ */
+public class EmailTemplateRegistry {
+
+    private final Map<String, EmailTemplate> bundled = new HashMap<>();
+    private volatile Map<String, LoadedTemplate> overrides = Map.of();
+    private final Path overrideDir;
+    private final ScheduledExecutorService reloader;
+
+    public EmailTemplateRegistry(String overrideDir, long reloadIntervalMs) throws IOException {
+        for (Resource resource : new PathMatchingResourcePatternResolver()
+                .getResources("classpath*:email-templates/*")) {
+            String fileName = resource.getFilename();
+            if (fileName == null) {
+                continue;
+            }
+            String source = resource.getContentAsString(StandardCharsets.UTF_8);
+            bundled.put(templateName(fileName), EmailTemplate.compile(source, isHtml(fileName)));
+        }
+        System.out.println("📝 Compiled " + bundled.size() + " email templates");
+
+        if (overrideDir == null || overrideDir.isBlank()) {
+            this.overrideDir = null;
+            this.reloader = null;
+            return;
+        }
+        this.overrideDir = Path.of(overrideDir);
+        reloadOverrides();
+        this.reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-template-reloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reloader.scheduleWithFixedDelay(this::reloadOverrides, reloadIntervalMs, reloadIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public Optional<EmailTemplate> find(String name) {
+        LoadedTemplate override = overrides.get(name);
+        return Optional.ofNullable(override != null && override.template() != null
+                ? override.template() : bundled.get(name));
+    }
+
+    public EmailTemplate get(String name) {
+        return find(name).orElseThrow(() -> new IllegalStateException("No email template named " + name));
+    }
+
+    // Recompiles only files whose modification time changed; deleted files fall back to the bundled copy
+    private void reloadOverrides() {
+        Map<String, LoadedTemplate> current = overrides;
+        Map<String, LoadedTemplate> next = new HashMap<>();
+        try (Stream<Path> files = Files.list(overrideDir)) {
+            Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                String fileName = file.getFileName().toString();
+                String name = templateName(fileName);
+                long modified = Files.getLastModifiedTime(file).toMillis();
+
+                LoadedTemplate previous = current.get(name);
+                if (previous != null && previous.modified() == modified) {
+                    next.put(name, previous);
+                    continue;
+                }
+                try {
+                    String source = Files.readString(file, StandardCharsets.UTF_8);
+                    next.put(name, new LoadedTemplate(EmailTemplate.compile(source, isHtml(fileName)), modified));
+                    System.out.println("🔄 Email template loaded: " + file);
+                } catch (Exception e) {
+                    System.err.println("❌ Failed to compile email template " + file + ": " + e.getMessage());
+                    // Remember the broken version so it is only retried after the next edit
+                    next.put(name, new LoadedTemplate(previous != null ? previous.template() : null, modified));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Cannot read email template directory " + overrideDir + ": " + e.getMessage());
+            return;
+        }
+        overrides = next;
+    }
+
+    private static String templateName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? fileName : fileName.substring(0, dot);
+    }
+
+    private static boolean isHtml(String fileName) {
+        return fileName.endsWith(".html") || fileName.endsWith(".htm");
+    }
+
+    public void shutdown() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+
+    // template is null when the file never compiled; the bundled copy is used instead
+    private record LoadedTemplate(EmailTemplate template, long modified) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.bookfair.mail.template;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailTemplateRegistryTest {
+
+    private Path overrideDir;
+    private EmailTemplateRegistry registry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        overrideDir = Files.createTempDirectory("email-templates");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (registry != null) {
+            registry.shutdown();
+        }
+        try (Stream<Path> files = Files.walk(overrideDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void compilesBundledTemplatesByName() throws IOException {
+        registry = new EmailTemplateRegistry("", 1000);
+
+        assertThat(registry.get("greeting").render(Map.of("name", "Ravi"))).isEqualTo("Hello Ravi!\n");
+        assertThat(registry.find("missing")).isEmpty();
+        assertThatThrownBy(() -> registry.get("missing")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void overridesBundledTemplatesAndEscapesHtmlOverrides() throws IOException {
+        Files.writeString(overrideDir.resolve("greeting.html"), "<h1>Hi {{name}}</h1>");
+        registry = new EmailTemplateRegistry(overrideDir.toString(), 60_000);
+
+        assertThat(registry.get("greeting").render(Map.of("name", "<script>")))
+                .isEqualTo("<h1>Hi &lt;script&gt;</h1>");
+    }
+
+    @Test
+    void picksUpEditsAndKeepsThePreviousVersionWhenAnEditIsBroken() throws Exception {
+        Path file = overrideDir.resolve("greeting.txt");
+        Files.writeString(file, "Version one");
+        registry = new EmailTemplateRegistry(overrideDir.toString(), 20);
+
+        rewrite(file, "Version two", 1);
+        awaitRendering("Version two");
+
+        rewrite(file, "Version {{three", 2);
+        Thread.sleep(200);
+        assertThat(registry.get("greeting").render(Map.of())).isEqualTo("Version two");
+
+        Files.delete(file);
+        awaitRendering("Hello there!\n");
+    }
+
+    @Test
+    void retriesABrokenOverrideOnlyAfterItIsEditedAgain() throws Exception {
+        Path file = overrideDir.resolve("greeting.txt");
+        Files.writeString(file, "Hi {{name");
+        PrintStream originalErr = System.err;
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(errors, true, StandardCharsets.UTF_8));
+        try {
+            registry = new EmailTemplateRegistry(overrideDir.toString(), 20);
+            Thread.sleep(200);
+        } finally {
+            System.setErr(originalErr);
+        }
+
+        assertThat(errors.toString(StandardCharsets.UTF_8).split("Failed to compile", -1)).hasSize(2);
+        assertThat(registry.get("greeting").render(Map.of("name", "Ravi"))).isEqualTo("Hello Ravi!\n");
+
+        rewrite(file, "Hi {{name}}", 1);
+        awaitRendering("Hi ");
+    }
+
+    // Bumps the modification time explicitly, since coarse file system clocks may not move
+    private static void rewrite(Path file, String source, int generation) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.writeString(file, source);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + generation * 1000L));
+    }
+
+    private void awaitRendering(String expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!expected.equals(registry.get("greeting").render(Map.of()))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(registry.get("greeting").render(Map.of())).isEqualTo(expected);
+    }
+}
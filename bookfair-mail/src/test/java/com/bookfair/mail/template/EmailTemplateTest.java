@@ -0,0 +1,71 @@
+package com.bookfair.mail.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailTemplateTest {
+
+    @Test
+    void substitutesVariablesAndFallbacks() {
+        EmailTemplate template = EmailTemplate.compile("Dear {{name}}, stall {{stall|TBA}} is {{status}}.", false);
+
+        assertThat(template.render(Map.of("name", "Sarasavi", "status", "CONFIRMED")))
+                .isEqualTo("Dear Sarasavi, stall TBA is CONFIRMED.");
+        assertThat(template.render(Map.of("stall", 42)))
+                .isEqualTo("Dear , stall 42 is .");
+    }
+
+    @Test
+    void rendersSectionsOnlyForNonEmptyValues() {
+        EmailTemplate template = EmailTemplate.compile("Total: {{amount}}\n{{#note}}\nNote: {{note}}\n{{/note}}\nThanks", false);
+        Map<String, Object> values = new HashMap<>();
+        values.put("amount", 1500);
+
+        assertThat(template.render(values)).isEqualTo("Total: 1500\nThanks");
+        values.put("note", "");
+        assertThat(template.render(values)).isEqualTo("Total: 1500\nThanks");
+        values.put("note", "Bring your pass");
+        assertThat(template.render(values)).isEqualTo("Total: 1500\nNote: Bring your pass\nThanks");
+    }
+
+    @Test
+    void escapesValuesInHtmlTemplates() {
+        EmailTemplate template = EmailTemplate.compile("<p title=\"{{name}}\">{{name}}</p>", true);
+
+        assertThat(template.render(Map.of("name", "<b>Tom & Jerry's \"Books\"</b>")))
+                .isEqualTo("<p title=\"&lt;b&gt;Tom &amp; Jerry&#39;s &quot;Books&quot;&lt;/b&gt;\">"
+                        + "&lt;b&gt;Tom &amp; Jerry&#39;s &quot;Books&quot;&lt;/b&gt;</p>");
+    }
+
+    @Test
+    void escapesFallbacksButNotTemplateMarkup() {
+        EmailTemplate template = EmailTemplate.compile("<i>{{name|<unknown>}}</i>", true);
+
+        assertThat(template.render(Map.of())).isEqualTo("<i>&lt;unknown&gt;</i>");
+    }
+
+    @Test
+    void leavesValuesAsTheyAreInTextTemplates() {
+        EmailTemplate template = EmailTemplate.compile("Hi {{name}}", false);
+
+        assertThat(template.render(Map.of("name", "<Tom & Jerry>"))).isEqualTo("Hi <Tom & Jerry>");
+    }
+
+    @Test
+    void rejectsMalformedTemplates() {
+        assertThatThrownBy(() -> EmailTemplate.compile("Hi {{name", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unclosed tag");
+        assertThatThrownBy(() -> EmailTemplate.compile("{{#a}}x{{/b}}", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("{{/b}}");
+        assertThatThrownBy(() -> EmailTemplate.compile("{{#a}}x", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("{{#a}}");
+    }
+}
@@ -1,13 +1,21 @@
+package lk.bookfair.emailservice.config;
+
+import com.bookfair.mail.template.EmailTemplateRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
 
+import java.io.IOException;
+
+// The pooled JavaMailSender comes from bookfair-mail's auto-configuration
 @Configuration
 public class MailConfig {
 
-    @Bean
-    public JavaMailSender javaMailSender() {
-        return new JavaMailSenderImpl(); // dummy mail sender
+    // Set email.templates.dir to override the bundled templates and pick up edits live
+    @Bean(destroyMethod = "shutdown")
+    public EmailTemplateRegistry emailTemplateRegistry(
+            @Value("${email.templates.dir:}") String overrideDir,
+            @Value("${email.templates.reload-interval-ms:2000}") long reloadIntervalMs) throws IOException {
+        return new EmailTemplateRegistry(overrideDir, reloadIntervalMs);
     }
 }
@@ -14,12 +14,21 @@ public class RabbitMQConfig {
     @Value("${email.queue.name}")
     private String emailQueue;
 
+    @Value("${email.dead-letter-queue.name}")
+    private String deadLetterQueue;
+
     // 1️⃣ Declare the queue
     @Bean
     public Queue queue() {
         return new Queue(emailQueue, true);
     }
 
+    // Requests whose email could not be built or sent, with the reason in x-failure-reason
+    @Bean
+    public Queue deadLetterQueue() {
+        return new Queue(deadLetterQueue, true);
+    }
+
     // 2️⃣ Use Jackson for JSON <-> Java conversion
     @Bean
     public Jackson2JsonMessageConverter jsonMessageConverter() {
@@ -3,22 +3,51 @@ package lk.bookfair.emailservice.listener;
 import lk.bookfair.emailservice.model.EmailRequest;
 import lk.bookfair.emailservice.service.EmailSenderService;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class EmailQueueListener {
 
+    private static final String FAILURE_REASON_HEADER = "x-failure-reason";
+
     @Autowired
     private EmailSenderService emailSenderService;
 
-    @RabbitListener(queues = "${email.queue.name}")
-    public void receiveEmailRequest(EmailRequest request) {
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Value("${email.dead-letter-queue.name}")
+    private String deadLetterQueue;
+
+    // Receives up to spring.rabbitmq.listener.simple.batch-size requests at a time
+    @RabbitListener(queues = "${email.queue.name}", batch = "true")
+    public void receiveEmailRequests(List<EmailRequest> requests) {
+        Map<EmailRequest, Exception> failed;
         try {
-            emailSenderService.sendEmailWithQR(request);
-            System.out.println("✅ Email sent successfully to: " + request.getTo());
+            failed = emailSenderService.sendEmailsWithQR(requests);
         } catch (Exception e) {
-            System.err.println("❌ Failed to send email: " + e.getMessage());
+            System.err.println("❌ Failed to send email batch: " + e.getMessage());
+            failed = new IdentityHashMap<>();
+            for (EmailRequest request : requests) {
+                failed.put(request, e);
+            }
         }
+        failed.forEach(this::deadLetter);
+    }
+
+    // An AmqpException here fails the listener, so the batch is redelivered rather than lost
+    private void deadLetter(EmailRequest request, Exception reason) {
+        System.err.println("📮 Dead-lettering email to " + request.getTo());
+        rabbitTemplate.convertAndSend("", deadLetterQueue, request, message -> {
+            message.getMessageProperties().setHeader(FAILURE_REASON_HEADER, String.valueOf(reason.getMessage()));
+            return message;
+        });
     }
 }
@@ -1,36 +1,10 @@
-//package lk.bookfair.emailservice.service;
-//
-//import lk.bookfair.emailservice.model.EmailRequest;
-//import org.springframework.beans.factory.annotation.Autowired;
-//import org.springframework.mail.SimpleMailMessage;
-//import org.springframework.mail.javamail.JavaMailSender;
-//import org.springframework.stereotype.Service;
-//
-//@Service
-//public class EmailSenderService {
-//
-//    @Autowired
-//    private JavaMailSender mailSender;
-//
-//    public void sendEmail(EmailRequest request) {
-//        SimpleMailMessage message = new SimpleMailMessage();
-//        message.setTo(request.getTo());
-//        message.setSubject(request.getSubject());
-//        String text = request.getBody();
-//
-//        if (request.getQrCodeUrl() != null && !request.getQrCodeUrl().isEmpty()) {
-//            text += "\n\nDownload your QR Pass: " + request.getQrCodeUrl();
-//        }
-//
-//        message.setText(text);
-//        mailSender.send(message);
-//    }
-//}
-
 package lk.bookfair.emailservice.service;
 
+import com.bookfair.mail.template.EmailTemplateRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
@@ -38,6 +12,12 @@ import org.springframework.stereotype.Service;
 import jakarta.mail.internet.MimeMessage;
 import lk.bookfair.emailservice.model.EmailRequest;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class EmailSenderService {
 
@@ -47,7 +27,59 @@ public class EmailSenderService {
     @Autowired
     private QRGenerator qrGenerator;
 
+    @Autowired
+    private EmailTemplateRegistry templateRegistry;
+
     public void sendEmailWithQR(EmailRequest request) throws Exception {
+        mailSender.send(buildMessage(request));
+    }
+
+    /**
+     * Sends a drained batch over one pooled SMTP connection. A message that fails to build or
+     * send does not hold back the rest; the failed requests are returned with their errors.
+     */
+    public Map<EmailRequest, Exception> sendEmailsWithQR(List<EmailRequest> requests) {
+        Map<EmailRequest, Exception> failedRequests = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(requests.size());
+        Map<MimeMessage, EmailRequest> requestByMessage = new IdentityHashMap<>();
+        for (EmailRequest request : requests) {
+            try {
+                MimeMessage message = buildMessage(request);
+                messages.add(message);
+                requestByMessage.put(message, request);
+            } catch (Exception e) {
+                System.err.println("❌ Failed to build email for " + request.getTo() + ": " + e.getMessage());
+                failedRequests.put(request, e);
+            }
+        }
+
+        Map<Object, Exception> failed = Map.of();
+        Exception batchFailure = null;
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                batchFailure = e;
+            }
+        } catch (MailException e) {
+            batchFailure = e;
+        }
+
+        for (MimeMessage message : messages) {
+            Exception failure = batchFailure != null ? batchFailure : failed.get(message);
+            if (failure == null) {
+                System.out.println("✅ Email sent successfully to: " + requestByMessage.get(message).getTo());
+            } else {
+                System.err.println("❌ Failed to send email to " + requestByMessage.get(message).getTo()
+                        + ": " + failure.getMessage());
+                failedRequests.put(requestByMessage.get(message), failure);
+            }
+        }
+        return failedRequests;
+    }
+
+    private MimeMessage buildMessage(EmailRequest request) throws Exception {
 
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true);
@@ -55,32 +87,8 @@ public class EmailSenderService {
         helper.setTo(request.getTo());
         helper.setSubject(request.getSubject());
 
-        // Build rich email body using all provided fields
-        StringBuilder emailText = new StringBuilder();
-
-        emailText.append("Dear ").append(request.getBusinessName()).append(",\n\n")
-                .append("Your reservation for the Colombo International Book Fair has been confirmed.\n\n")
-                .append("Reservation Details:\n")
-                .append("- Reservation ID: ").append(request.getReservationId()).append("\n")
-                .append("- Status: ").append(request.getStatus()).append("\n")
-                .append("- Reserved On: ").append(request.getReserveDate()).append("\n")
-                .append("- Confirmed On: ").append(request.getReserveConfirmDate()).append("\n")
-                .append("- Amount: Rs. ").append(request.getAmount()).append("\n\n")
-
-                .append("Stall Details:\n")
-                .append("- Stall ID: ").append(request.getStallId()).append("\n")
-                .append("- Stall Name: ").append(request.getStallName()).append("\n")
-                .append("- Stall Size: ").append(request.getStallSize()).append("\n")
-                .append("- Location: ").append(request.getStallLocation()).append("\n\n")
-
-                .append("Please find your QR pass attached with this email.\n")
-                .append("Present it at the exhibition entrance for verification.\n\n")
-                .append("Thank you,\n")
-                .append("Sri Lanka Book Publishers’ Association\n\n")
-
-                .append(request.getBody()); // Append any custom body text at the end
-
-        helper.setText(emailText.toString());
+        // Rich email body from the precompiled template, using all provided fields
+        helper.setText(templateRegistry.get("reservation-confirmed").render(templateValues(request)));
 
         // QR Content in simple text format
         String qrContent = "BusinessName: " + request.getBusinessName() + "\n"
@@ -93,6 +101,22 @@ public class EmailSenderService {
         byte[] qrBytes = qrGenerator.generateQR(qrContent);
         helper.addAttachment("QR-PASS.png", new ByteArrayResource(qrBytes));
 
-        mailSender.send(message);
+        return message;
+    }
+
+    private static Map<String, Object> templateValues(EmailRequest request) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("businessName", request.getBusinessName());
+        values.put("reservationId", request.getReservationId());
+        values.put("status", request.getStatus());
+        values.put("reserveDate", request.getReserveDate());
+        values.put("reserveConfirmDate", request.getReserveConfirmDate());
+        values.put("amount", request.getAmount());
+        values.put("stallId", request.getStallId());
+        values.put("stallName", request.getStallName());
+        values.put("stallSize", request.getStallSize());
+        values.put("stallLocation", request.getStallLocation());
+        values.put("body", request.getBody());
+        return values;
     }
 }
@@ -0,0 +1,112 @@
+package lk.bookfair.emailservice.service;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a {@link BitMatrix} as a 1-bit grayscale PNG. Rows are packed eight pixels per byte
+ * straight from the matrix's bit words; QR modules span many identical rows, so a row that
+ * matches the previous one is copied instead of packed again. Deflaters are pooled because
+ * they hold native memory that is expensive to allocate per image.
+ */
+final class QRPngWriter {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final Queue<Deflater> DEFLATERS = new ConcurrentLinkedQueue<>();
+
+    private QRPngWriter() {
+    }
+
+    static byte[] write(BitMatrix matrix) throws IOException {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        byte[] compressed = deflate(rasterize(matrix, width, height));
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(compressed.length + 64);
+        DataOutputStream out = new DataOutputStream(png);
+        out.write(SIGNATURE);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream ihdr = new DataOutputStream(header);
+        ihdr.writeInt(width);
+        ihdr.writeInt(height);
+        ihdr.writeByte(1); // bit depth
+        ihdr.writeByte(0); // grayscale
+        ihdr.writeByte(0); // deflate
+        ihdr.writeByte(0); // adaptive filtering
+        ihdr.writeByte(0); // no interlace
+        writeChunk(out, "IHDR", header.toByteArray());
+        writeChunk(out, "IDAT", compressed);
+        writeChunk(out, "IEND", new byte[0]);
+        return png.toByteArray();
+    }
+
+    // Each scanline is a filter byte (0 = none) followed by the packed pixels, white = 1
+    private static byte[] rasterize(BitMatrix matrix, int width, int height) {
+        int stride = ((width + 7) >>> 3) + 1;
+        byte[] raw = new byte[stride * height];
+        BitArray row = new BitArray(width);
+        int[] previous = null;
+
+        for (int y = 0, offset = 0; y < height; y++, offset += stride) {
+            row = matrix.getRow(y, row);
+            int[] bits = row.getBitArray();
+            if (previous != null && Arrays.equals(bits, previous)) {
+                System.arraycopy(raw, offset - stride, raw, offset, stride);
+                continue;
+            }
+
+            // BitArray stores pixel x at bit (x & 31) of word x >> 5, least significant first
+            int out = offset + 1;
+            for (int x = 0; x < width; x += 8) {
+                int pixels = (bits[x >>> 5] >>> (x & 31)) & 0xFF;
+                raw[out++] = (byte) ~(Integer.reverse(pixels) >>> 24);
+            }
+            previous = bits.clone();
+        }
+        return raw;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = DEFLATERS.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        }
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 8);
+            byte[] buffer = new byte[2048];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                compressed.write(buffer, 0, length);
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.reset();
+            DEFLATERS.offer(deflater);
+        }
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+}
@@ -0,0 +1,96 @@
+package lk.bookfair.emailservice.service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QRPngWriterTest {
+
+    @Test
+    void matchesImageIoAtTheSmallestQrSize() throws Exception {
+        assertMatchesImageIo(randomMatrix(21));
+    }
+
+    @Test
+    void matchesImageIoWhenRowsEndMidByte() throws Exception {
+        assertMatchesImageIo(randomMatrix(33));
+    }
+
+    @Test
+    void matchesImageIoForTheEmailQrCode() throws Exception {
+        assertMatchesImageIo(qrCode(250));
+    }
+
+    @Test
+    void matchesImageIoWhenRowsSpillIntoAnotherWord() throws Exception {
+        assertMatchesImageIo(qrCode(257));
+    }
+
+    @Test
+    void matchesImageIoForTheNotificationQrCode() throws Exception {
+        assertMatchesImageIo(qrCode(300));
+    }
+
+    @Test
+    void matchesImageIoForARandomLargeMatrix() throws Exception {
+        assertMatchesImageIo(randomMatrix(257));
+    }
+
+    // Decodes both PNGs with ImageIO so the comparison is pixel for pixel, not byte for byte
+    private static void assertMatchesImageIo(BitMatrix matrix) throws Exception {
+        ByteArrayOutputStream reference = new ByteArrayOutputStream();
+        MatrixToImageWriter.writeToStream(matrix, "PNG", reference);
+
+        BufferedImage expected = ImageIO.read(new ByteArrayInputStream(reference.toByteArray()));
+        BufferedImage actual = ImageIO.read(new ByteArrayInputStream(QRPngWriter.write(matrix)));
+
+        assertThat(actual.getWidth()).isEqualTo(expected.getWidth());
+        assertThat(actual.getHeight()).isEqualTo(expected.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertThat(actual.getRGB(x, y))
+                        .as("pixel (%d, %d) of a %dx%d matrix", x, y, matrix.getWidth(), matrix.getHeight())
+                        .isEqualTo(expected.getRGB(x, y));
+            }
+        }
+    }
+
+    private static BitMatrix qrCode(int size) throws Exception {
+        BitMatrix matrix = new QRCodeWriter().encode("RESERVATION:R-1042|STATUS:CONFIRMED|TYPE:CHECK_IN",
+                BarcodeFormat.QR_CODE, size, size);
+        assertThat(matrix.getWidth()).isEqualTo(size);
+        return matrix;
+    }
+
+    // Fixed seed; repeats some rows so the copied-row path is covered as well
+    private static BitMatrix randomMatrix(int size) {
+        Random random = new Random(size);
+        BitMatrix matrix = new BitMatrix(size, size);
+        for (int y = 0; y < size; y++) {
+            if (y > 0 && random.nextInt(3) == 0) {
+                for (int x = 0; x < size; x++) {
+                    if (matrix.get(x, y - 1)) {
+                        matrix.set(x, y);
+                    }
+                }
+                continue;
+            }
+            for (int x = 0; x < size; x++) {
+                if (random.nextBoolean()) {
+                    matrix.set(x, y);
+                }
+            }
+        }
+        return matrix;
+    }
+}
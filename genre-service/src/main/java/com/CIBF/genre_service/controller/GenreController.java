@@ -4,7 +4,9 @@ import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import com.bookfair.auth.AuthenticatedUser;
 import com.CIBF.genre_service.model.Genre;
 import com.CIBF.genre_service.service.GenreService;
 
@@ -44,7 +46,11 @@ public class GenreController {
     }
 
     @PostMapping("/{exhibitorId}/{genreId}")
-    public ResponseEntity<Genre> addExhibitorToGenre(@PathVariable String exhibitorId, @PathVariable Long genreId) {
+    public ResponseEntity<Genre> addExhibitorToGenre(@PathVariable String exhibitorId, @PathVariable Long genreId,
+                                                     @AuthenticationPrincipal AuthenticatedUser caller) {
+        if (!canActFor(caller, exhibitorId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
         Genre updatedGenre = genreService.addExhibitorToGenre(exhibitorId, genreId);
         return ResponseEntity.ok(updatedGenre);
     }
@@ -52,8 +58,11 @@ public class GenreController {
     @PostMapping("/add/{exhibitorId}")
     public ResponseEntity<String> addExhibitorToMultipleGenres(
             @PathVariable String exhibitorId,
-            @RequestBody List<String> genreNames) {
-
+            @RequestBody List<String> genreNames,
+            @AuthenticationPrincipal AuthenticatedUser caller) {
+        if (!canActFor(caller, exhibitorId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
         List<Genre> updatedGenres = genreService.addExhibitorToMultipleGenres(exhibitorId, genreNames);
         return ResponseEntity.ok("Success");
     }
@@ -76,4 +85,9 @@ public class GenreController {
         List<String> genreNames = genreService.getAllGenreNames();
         return ResponseEntity.ok(genreNames);
     }
-}
\ No newline at end of file
+
+    // Exhibitors may only change their own genres; staff may change anyone's
+    private static boolean canActFor(AuthenticatedUser caller, String exhibitorId) {
+        return caller != null && (caller.userId().equals(exhibitorId) || caller.hasRole("EMPLOYEE"));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.notificationservice.config;
+
+import com.bookfair.mail.template.EmailTemplateRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+// The pooled JavaMailSender comes from bookfair-mail's auto-configuration
+@Configuration
+public class MailConfig {
+
+    // Set notification.templates.dir to override the bundled templates and pick up edits live
+    @Bean(destroyMethod = "shutdown")
+    public EmailTemplateRegistry emailTemplateRegistry(
+            @Value("${notification.templates.dir:}") String overrideDir,
+            @Value("${notification.templates.reload-interval-ms:2000}") long reloadIntervalMs) throws IOException {
+        return new EmailTemplateRegistry(overrideDir, reloadIntervalMs);
+    }
+}
@@ -7,9 +7,16 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class RabbitMQConfig {
     public static final String RESERVATION_EMAIL_QUEUE = "reservation.email.queue";
+    // Emails that could not be sent, with the reason in the x-failure-reason header
+    public static final String RESERVATION_EMAIL_DLQ = "reservation.email.dlq";
 
     @Bean
     public Queue emailQueue() {
         return new Queue(RESERVATION_EMAIL_QUEUE, true);
     }
+
+    @Bean
+    public Queue emailDeadLetterQueue() {
+        return new Queue(RESERVATION_EMAIL_DLQ, true);
+    }
 }
@@ -1,88 +1,158 @@
 package com.example.notificationservice.consumer;
 
+import com.bookfair.mail.template.EmailTemplate;
+import com.bookfair.mail.template.EmailTemplateRegistry;
 import com.example.notificationservice.config.RabbitMQConfig;
 import com.example.notificationservice.service.EmailService;
-import com.example.notificationservice.util.QRCodeGenerator;
+import com.example.notificationservice.service.EmailService.PreparedEmail;
+import com.example.notificationservice.service.QRCodeService;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.mail.MessagingException;
+import com.rabbitmq.client.Channel;
 import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @Component
 @RequiredArgsConstructor
 public class EmailConsumer {
 
+    private static final String FAILURE_REASON_HEADER = "x-failure-reason";
+
     private final EmailService emailService;
+    private final EmailDispatcher emailDispatcher;
+    private final QRCodeService qrCodeService;
+    private final EmailTemplateRegistry templateRegistry;
     private final ObjectMapper objectMapper;
+    private final RabbitTemplate rabbitTemplate;
+
+    /**
+     * Parse, render and QR stages run on the listener thread; sending is handed to the SMTP pool.
+     * The listener then waits for its batch to go out and settles every delivery itself, since
+     * the channel must not be used from the SMTP workers. A failed send is retried once through
+     * the broker; after that, and for messages that can never be sent, it goes to the dead
+     * letter queue.
+     */
+    @RabbitListener(queues = RabbitMQConfig.RESERVATION_EMAIL_QUEUE, ackMode = "MANUAL", batch = "true",
+            concurrency = "${notification.consumer.concurrency:2-8}")
+    public void consumeMessages(List<Message> messages, Channel channel) {
+        List<Send> sends = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            try {
+                sends.add(new Send(message, emailDispatcher.dispatch(prepare(message))));
+            } catch (Exception e) {
+                // Malformed messages would fail the same way on every redelivery
+                System.err.println("❌ Error processing message: " + e.getMessage());
+                e.printStackTrace();
+                deadLetter(channel, message, e);
+            }
+        }
 
-    @Value("${qrcode.folder:qrcodes}")
-    private String qrFolder;
+        for (Send send : sends) {
+            Message message = send.message();
+            try {
+                send.result().join();
+                ack(channel, message);
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof RejectedExecutionException || !message.getMessageProperties().isRedelivered()) {
+                    System.err.println("❌ Failed to send email, requeueing: " + cause.getMessage());
+                    nack(channel, message, true);
+                } else {
+                    System.err.println("❌ Failed to send email again, dead-lettering: " + cause.getMessage());
+                    deadLetter(channel, message, cause);
+                }
+            }
+        }
+    }
 
-    @RabbitListener(queues = RabbitMQConfig.RESERVATION_EMAIL_QUEUE)
-    public void consumeMessage(String messageJson) {
+    private PreparedEmail prepare(Message message) throws Exception {
+        String messageJson = new String(message.getBody(), StandardCharsets.UTF_8);
         System.out.println("📨 Raw message received: " + messageJson);
-        
-        try {
-            Map<String, Object> messageMap = objectMapper.readValue(messageJson, Map.class);
-
-            System.out.println("📨 Parsed message: " + messageMap);
 
-            String email = (String) messageMap.get("email");
-            String status = (String) messageMap.get("status");
-            String reservationId = (String) messageMap.get("reservationId");
-            String event = (String) messageMap.get("event");
+        Map<String, Object> messageMap = objectMapper.readValue(messageJson, Map.class);
 
-            // Validate required fields
-            if (email == null || email.isEmpty()) {
-                System.err.println("❌ Email is missing in the message");
-                return;
-            }
+        System.out.println("📨 Parsed message: " + messageMap);
 
-            if (reservationId == null || reservationId.isEmpty()) {
-                System.err.println("❌ Reservation ID is missing in the message");
-                return;
-            }
+        String email = (String) messageMap.get("email");
+        String status = (String) messageMap.get("status");
+        String reservationId = (String) messageMap.get("reservationId");
+        String event = (String) messageMap.get("event");
 
-            System.out.println("📧 Preparing to send email to: " + email);
-            System.out.println("   Event: " + event);
-            System.out.println("   Status: " + status);
-            System.out.println("   Reservation ID: " + reservationId);
+        // Validate required fields
+        if (email == null || email.isEmpty()) {
+            throw new IllegalArgumentException("Email is missing in the message");
+        }
 
-            String qrFileName = null;
-            try {
-                String qrContent = buildQRContent(reservationId, event, status);
-                System.out.println("🔲 Generating QR code with content: " + qrContent);
-                
-                qrFileName = QRCodeGenerator.generateQRCodeImage(
-                    qrContent,
-                    300,
-                    300,
-                    qrFolder
-                );
-                
-                System.out.println("✅ QR code generated: " + qrFileName);
-            } catch (Exception e) {
-                System.err.println("❌ Failed to generate QR code: " + e.getMessage());
-                e.printStackTrace();
-            }
+        if (reservationId == null || reservationId.isEmpty()) {
+            throw new IllegalArgumentException("Reservation ID is missing in the message");
+        }
 
-            String subject = buildSubject(event, status);
-            String text = buildEmailBody(messageMap, event, status, reservationId);
+        System.out.println("📧 Preparing to send email to: " + email);
+        System.out.println("   Event: " + event);
+        System.out.println("   Status: " + status);
+        System.out.println("   Reservation ID: " + reservationId);
 
-            emailService.sendEmail(email, subject, text, null, qrFileName);
-            
-            System.out.println("✅ Email sent successfully to: " + email);
-        } catch (MessagingException e) {
-            System.err.println("❌ Failed to send email: " + e.getMessage());
-            e.printStackTrace();
+        String qrContent = buildQRContent(reservationId, event, status);
+        byte[] qrPng = null;
+        try {
+            System.out.println("🔲 Generating QR code with content: " + qrContent);
+            qrPng = qrCodeService.generatePng(qrContent, 300, 300);
         } catch (Exception e) {
-            System.err.println("❌ Error processing message: " + e.getMessage());
+            System.err.println("❌ Failed to generate QR code: " + e.getMessage());
             e.printStackTrace();
         }
+
+        String subject = buildSubject(event, status);
+        String text = buildEmailBody(messageMap, event);
+
+        return emailService.prepareEmail(email, subject, text, null, qrContent, qrPng);
+    }
+
+    // Publishes a copy to the dead letter queue before acking, so the message is never lost
+    private void deadLetter(Channel channel, Message message, Throwable reason) {
+        Message deadLetter = MessageBuilder.fromMessage(message)
+                .setHeader(FAILURE_REASON_HEADER, String.valueOf(reason.getMessage()))
+                .build();
+        try {
+            rabbitTemplate.send("", RabbitMQConfig.RESERVATION_EMAIL_DLQ, deadLetter);
+        } catch (AmqpException e) {
+            System.err.println("❌ Failed to dead-letter message, requeueing: " + e.getMessage());
+            nack(channel, message, true);
+            return;
+        }
+        ack(channel, message);
+    }
+
+    private static void ack(Channel channel, Message message) {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ Failed to ack message " + deliveryTag + ": " + e.getMessage());
+        }
+    }
+
+    private static void nack(Channel channel, Message message, boolean requeue) {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        try {
+            channel.basicNack(deliveryTag, false, requeue);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ Failed to nack message " + deliveryTag + ": " + e.getMessage());
+        }
     }
 
     private String buildQRContent(String reservationId, String event, String status) {
@@ -133,68 +203,16 @@ public class EmailConsumer {
         }
     }
 
-    private String buildEmailBody(Map<String, Object> messageMap, String event, String status, String reservationId) {
-        StringBuilder body = new StringBuilder();
-        body.append("<html><body style='font-family: Arial, sans-serif;'>");
-        body.append("<h2 style='color: #333;'>Reservation Update</h2>");
-        body.append("<p>Dear Customer,</p>");
-
-        if (event == null) {
-            event = "UNKNOWN";
-        }
-
-        switch (event) {
-            case "RESERVATION_CREATED":
-                body.append("<p>Your reservation has been <strong>created successfully</strong>.</p>");
-                body.append("<p><strong>Reservation ID:</strong> ").append(reservationId != null ? reservationId : "N/A").append("</p>");
-                body.append("<p><strong>Status:</strong> ").append(status != null ? status : "N/A").append("</p>");
-                
-                Object amount = messageMap.get("amount");
-                if (amount != null) {
-                    body.append("<p><strong>Amount:</strong> LKR").append(amount).append("</p>");
-                }
-                
-                Object stallId = messageMap.get("stallId");
-                if (stallId != null) {
-                    body.append("<p><strong>Stall ID:</strong> ").append(stallId).append("</p>");
-                }
-                
-                Object reserveDate = messageMap.get("reserveDate");
-                if (reserveDate != null) {
-                    body.append("<p><strong>Reserved on:</strong> ").append(reserveDate).append("</p>");
-                }
-                
-                body.append("<p>Please keep your QR code attached to this email for check-in.</p>");
-                break;
-
-            case "RESERVATION_CONFIRMED":
-                body.append("<p>Your reservation has been <strong>confirmed</strong>!</p>");
-                body.append("<p><strong>Reservation ID:</strong> ").append(reservationId != null ? reservationId : "N/A").append("</p>");
-                
-                Object confirmDate = messageMap.get("reserveConfirmDate");
-                if (confirmDate != null) {
-                    body.append("<p><strong>Confirmed on:</strong> ").append(confirmDate).append("</p>");
-                }
-                
-                body.append("<p>Your updated QR code is attached. Please present it at the venue.</p>");
-                break;
-
-            case "RESERVATION_CANCELLED":
-                body.append("<p>Your reservation has been <strong>cancelled</strong>.</p>");
-                body.append("<p><strong>Reservation ID:</strong> ").append(reservationId != null ? reservationId : "N/A").append("</p>");
-                body.append("<p>If you did not request this cancellation, please contact support immediately.</p>");
-                break;
-
-            default:
-                body.append("<p>Your reservation with ID <strong>").append(reservationId != null ? reservationId : "N/A")
-                    .append("</strong> is now <strong>").append(status != null ? status : "updated").append("</strong>.</p>");
+    // Per-event templates live in resources/email-templates and can be overridden on disk
+    private String buildEmailBody(Map<String, Object> messageMap, String event) {
+        String templateName = event == null ? null : event.toLowerCase(Locale.ROOT).replace('_', '-');
+        EmailTemplate template = templateName == null ? null : templateRegistry.find(templateName).orElse(null);
+        if (template == null) {
+            template = templateRegistry.get("reservation-update");
         }
+        return template.render(messageMap);
+    }
 
-        body.append("<br>");
-        body.append("<p>Thank you for choosing our service!</p>");
-        body.append("<p style='color: #666; font-size: 12px;'>This is an automated message. Please do not reply.</p>");
-        body.append("</body></html>");
-
-        return body.toString();
+    private record Send(Message message, CompletableFuture<Void> result) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,133 @@
+package com.example.notificationservice.consumer;
+
+import com.example.notificationservice.service.EmailService;
+import com.example.notificationservice.service.EmailService.PreparedEmail;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Send and persist stages of the email pipeline. A fixed set of SMTP workers, one per pooled
+ * mail connection, drain the queue in batches and send each batch over a single connection.
+ * Every dispatched email gets a future that the workers complete once its own message has gone
+ * out or failed; the broker is never touched from here, so the listener thread that owns the
+ * channel does all acking. When the queue is full dispatch blocks the listener thread, which
+ * stops it pulling more messages until the workers catch up.
+ */
+@Component
+public class EmailDispatcher {
+
+    private final EmailService emailService;
+    private final BlockingQueue<Delivery> pending;
+    private final List<Thread> workers = new ArrayList<>();
+    private final int batchSize;
+    private volatile boolean running = true;
+
+    public EmailDispatcher(EmailService emailService,
+                           @Value("${notification.smtp.workers:4}") int workerCount,
+                           @Value("${notification.smtp.queue-capacity:100}") int queueCapacity,
+                           @Value("${notification.smtp.batch-size:10}") int batchSize) {
+        this.emailService = emailService;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        for (int i = 1; i <= workerCount; i++) {
+            Thread worker = new Thread(this::drain, "smtp-sender-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    // Fails with RejectedExecutionException when the email was never handed to a worker
+    public CompletableFuture<Void> dispatch(PreparedEmail email) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Email dispatcher is shutting down"));
+        }
+        Delivery delivery = new Delivery(email, new CompletableFuture<>());
+        try {
+            pending.put(delivery);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Interrupted while queueing email", e));
+        }
+        return delivery.result();
+    }
+
+    private void drain() {
+        List<Delivery> batch = new ArrayList<>(batchSize);
+        while (running || !pending.isEmpty()) {
+            try {
+                Delivery first = pending.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, batchSize - 1);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Throwable e) {
+                System.err.println("❌ SMTP worker error: " + e.getMessage());
+                e.printStackTrace();
+                // Never leave a listener waiting on an email this worker took
+                for (Delivery delivery : batch) {
+                    delivery.result().completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void sendBatch(List<Delivery> batch) {
+        Map<Object, Exception> failed = Map.of();
+        Exception batchFailure = null;
+        try {
+            emailService.send(batch.stream().map(Delivery::email).toList());
+        } catch (MailSendException e) {
+            failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                batchFailure = e;
+            }
+        } catch (Exception e) {
+            batchFailure = e;
+        }
+
+        for (Delivery delivery : batch) {
+            Exception failure = batchFailure != null ? batchFailure : failed.get(delivery.email().mimeMessage());
+            if (failure != null) {
+                delivery.result().completeExceptionally(failure);
+            } else {
+                delivery.result().complete(null);
+                emailService.record(delivery.email());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+            worker.interrupt();
+        }
+        // Whatever the workers did not reach goes back to the broker
+        Delivery delivery;
+        while ((delivery = pending.poll()) != null) {
+            delivery.result().completeExceptionally(new RejectedExecutionException("Email dispatcher is shutting down"));
+        }
+    }
+
+    private record Delivery(PreparedEmail email, CompletableFuture<Void> result) {
+    }
+}
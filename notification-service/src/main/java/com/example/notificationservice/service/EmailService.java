@@ -6,6 +6,7 @@ import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -20,14 +22,30 @@ public class EmailService {
 
     private final JavaMailSender mailSender;
     private final EmailRecordRepository repository;
-
-    @Value("${qrcode.folder:qrcodes}")
-    private String qrFolder;
+    private final QRCodeService qrCodeService;
 
     @Value("${spring.mail.username:noreply@example.com}")
     private String fromEmail;
 
-    public void sendEmail(String to, String subject, String message, String attachmentPath, String qrFileName) throws MessagingException {
+    public void sendEmail(String to, String subject, String message, String attachmentPath, String qrData) throws MessagingException {
+        byte[] qrPng = null;
+        if (qrData != null && !qrData.isEmpty()) {
+            try {
+                qrPng = qrCodeService.generatePng(qrData, 300, 300);
+            } catch (Exception e) {
+                System.err.println("❌ Failed to generate QR code: " + e.getMessage());
+            }
+        }
+
+        PreparedEmail email = prepareEmail(to, subject, message, attachmentPath, qrData, qrPng);
+        send(email);
+        record(email);
+        System.out.println("=== END EMAIL SERVICE ===");
+    }
+
+    // Builds the MIME message without touching the SMTP server, so it can run off the send pool
+    public PreparedEmail prepareEmail(String to, String subject, String message, String attachmentPath,
+                                      String qrData, byte[] qrPng) throws MessagingException {
         System.out.println("=== EMAIL SERVICE ===");
         System.out.println("📧 Sending to: " + to);
         System.out.println("📧 Subject: " + subject);
@@ -55,61 +73,41 @@ public class EmailService {
             }
         }
 
-        if (qrFileName != null && !qrFileName.isEmpty()) {
-            File qrFile = new File(qrFolder, qrFileName);
-            
-            System.out.println("📊 QR Code Details:");
-            System.out.println("   Folder: " + qrFolder);
-            System.out.println("   Filename: " + qrFileName);
-            System.out.println("   Full Path: " + qrFile.getAbsolutePath());
-            System.out.println("   Exists: " + qrFile.exists());
-            System.out.println("   Size: " + (qrFile.exists() ? qrFile.length() + " bytes" : "N/A"));
-            
-            if (qrFile.exists() && qrFile.isFile()) {
-                try {
-                    FileSystemResource qrResource = new FileSystemResource(qrFile);
-                    helper.addAttachment("QRCode.png", qrResource);
-                    if (attachmentName == null) {
-                        attachmentName = "QRCode.png";
-                    }
-                    System.out.println("✅ QR code attached: " + qrFile.getAbsolutePath());
-                } catch (Exception e) {
-                    System.err.println("❌ Error attaching QR code: " + e.getMessage());
-                    e.printStackTrace();
-                }
-            } else {
-                System.err.println("❌ QR code file not found: " + qrFile.getAbsolutePath());
-                
-                File qrDir = new File(qrFolder);
-                if (qrDir.exists() && qrDir.isDirectory()) {
-                    System.out.println("📁 Available files in " + qrDir.getAbsolutePath() + ":");
-                    File[] files = qrDir.listFiles();
-                    if (files != null && files.length > 0) {
-                        for (File f : files) {
-                            System.out.println("   - " + f.getName());
-                        }
-                    } else {
-                        System.out.println("   (directory is empty)");
-                    }
-                }
+        if (qrPng != null) {
+            helper.addAttachment("QRCode.png", new ByteArrayResource(qrPng), "image/png");
+            if (attachmentName == null) {
+                attachmentName = "QRCode.png";
             }
+            System.out.println("✅ QR code attached (" + qrPng.length + " bytes)");
         }
 
+        return new PreparedEmail(mimeMessage, to, subject, message, attachmentName, qrData);
+    }
+
+    public void send(PreparedEmail email) {
         try {
-            mailSender.send(mimeMessage);
+            mailSender.send(email.mimeMessage());
             System.out.println("✅ Email sent successfully!");
         } catch (Exception e) {
             System.err.println("❌ Failed to send email: " + e.getMessage());
             throw e;
         }
+    }
+
+    // A batch goes out over a single pooled SMTP connection
+    public void send(List<PreparedEmail> emails) {
+        mailSender.send(emails.stream().map(PreparedEmail::mimeMessage).toArray(MimeMessage[]::new));
+        System.out.println("✅ Sent batch of " + emails.size() + " emails");
+    }
 
+    public void record(PreparedEmail email) {
         try {
             EmailRecord record = new EmailRecord();
-            record.setToEmail(to);
-            record.setSubject(subject);
-            record.setMessage(message);
-            record.setAttachmentName(attachmentName);
-            record.setQrData(qrFileName);
+            record.setToEmail(email.to());
+            record.setSubject(email.subject());
+            record.setMessage(email.message());
+            record.setAttachmentName(email.attachmentName());
+            record.setQrData(email.qrData());
             record.setSentAt(LocalDateTime.now());
             
             EmailRecord saved = repository.save(record);
@@ -118,7 +116,9 @@ public class EmailService {
             System.err.println("❌ Failed to save email record: " + e.getMessage());
             e.printStackTrace();
         }
-        
-        System.out.println("=== END EMAIL SERVICE ===");
+    }
+
+    public record PreparedEmail(MimeMessage mimeMessage, String to, String subject, String message,
+                                String attachmentName, String qrData) {
     }
 }
\ No newline at end of file
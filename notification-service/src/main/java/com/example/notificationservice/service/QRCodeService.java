@@ -0,0 +1,60 @@
+package com.example.notificationservice.service;
+
+import com.example.notificationservice.util.QRCodeGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Renders QR codes to PNG bytes and keeps the most recently used ones, keyed by a hash of the
+ * content and size. The same reservation state always encodes to the same content, so
+ * re-sends reuse the bytes instead of encoding again.
+ */
+@Service
+public class QRCodeService {
+
+    private final Map<String, byte[]> cache;
+
+    public QRCodeService(@Value("${qrcode.cache.max-entries:1000}") int maxEntries) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public byte[] generatePng(String content, int width, int height) throws Exception {
+        String key = cacheKey(content, width, height);
+        byte[] png = cached(key);
+        if (png != null) {
+            return png;
+        }
+
+        // Encode outside the lock; two threads racing on the same content produce identical bytes
+        png = QRCodeGenerator.generateQRCodePng(content, width, height);
+        synchronized (cache) {
+            cache.put(key, png);
+        }
+        return png;
+    }
+
+    private byte[] cached(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private static String cacheKey(String content, int width, int height) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update((width + "x" + height + ":").getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -6,32 +6,20 @@ import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
 
-import java.io.File;
-import java.nio.file.Path;
+import java.io.ByteArrayOutputStream;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 public class QRCodeGenerator {
 
-    public static String generateQRCodeImage(String text, int width, int height, String folder) throws Exception {
+    public static byte[] generateQRCodePng(String text, int width, int height) throws Exception {
         QRCodeWriter qrCodeWriter = new QRCodeWriter();
         Map<EncodeHintType, Object> hints = new HashMap<>();
         hints.put(EncodeHintType.MARGIN, 1);
 
         BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, width, height, hints);
-        File dir = new File(folder);
-        if (!dir.exists()) {
-            dir.mkdirs();
-            System.out.println("📁 Created QR directory: " + dir.getAbsolutePath());
-        }
-
-        String filename = "qr_" + UUID.randomUUID() + ".png";
-        Path path = new File(dir, filename).toPath();
-        MatrixToImageWriter.writeToPath(bitMatrix, "PNG", path);
-        
-        System.out.println("✅ QR code generated: " + path.toAbsolutePath());
-        
-        return filename;
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        MatrixToImageWriter.writeToStream(bitMatrix, "PNG", png);
+        return png.toByteArray();
     }
-}
\ No newline at end of file
+}
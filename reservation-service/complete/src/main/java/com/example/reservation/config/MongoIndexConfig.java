@@ -0,0 +1,38 @@
+package com.example.reservation.config;
+
+import com.example.reservation.model.Reservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes declared on {@link Reservation} at startup, so they exist whether or
+ * not spring.data.mongodb.auto-index-creation is switched on in the deployed properties.
+ * ensureIndex is a no-op for an index that already exists.
+ */
+@Component
+@RequiredArgsConstructor
+public class MongoIndexConfig {
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void ensureIndexes() {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(Reservation.class);
+            MongoPersistentEntityIndexResolver resolver =
+                    new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+            resolver.resolveIndexFor(Reservation.class).forEach(indexOps::ensureIndex);
+            System.out.println("Reservation indexes ensured");
+        } catch (Exception e) {
+            System.err.println("Could not create reservation indexes: " + e.getMessage());
+        }
+    }
+}
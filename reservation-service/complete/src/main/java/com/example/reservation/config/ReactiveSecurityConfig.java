@@ -0,0 +1,47 @@
+package com.example.reservation.config;
+
+import com.bookfair.auth.JwtVerifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.publisher.Mono;
+
+// Same rules as SecurityConfig for the reactive profile
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JwtVerifier jwtVerifier) {
+        // The converter already yields a verified authentication, so the manager just passes it on
+        AuthenticationWebFilter jwtFilter = new AuthenticationWebFilter((ReactiveAuthenticationManager) Mono::just);
+        jwtFilter.setServerAuthenticationConverter(exchange -> Mono
+                .justOrEmpty(JwtVerifier.bearerToken(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION)))
+                .flatMap(token -> Mono.justOrEmpty(jwtVerifier.verify(token)))
+                .map(jwtVerifier::authenticationFor));
+
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(exchange -> exchange
+                        .pathMatchers(HttpMethod.POST, "/api/reservations").authenticated()
+                        .pathMatchers(HttpMethod.PUT, "/api/reservations/*/confirm").hasRole("EMPLOYEE")
+                        .pathMatchers(HttpMethod.PUT, "/api/reservations/*/cancel").authenticated()
+                        .anyExchange().permitAll()
+                )
+                .addFilterAt(jwtFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.reservation.controller;
+
+import com.bookfair.auth.AuthenticatedUser;
+import com.bookfair.idempotency.IdempotencyStore;
+import com.bookfair.idempotency.ReactiveIdempotencyStore;
+import com.example.reservation.model.Reservation;
+import com.example.reservation.model.ReservationPage;
+import com.example.reservation.service.ReactiveReservationService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+// Same API as ReservationController, served by WebFlux when running with the reactive profile
+@RestController
+@RequestMapping("/api/reservations")
+@RequiredArgsConstructor
+@CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReservationController {
+
+    private final ReactiveReservationService reservationService;
+    private final ReactiveIdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping
+    public Mono<ResponseEntity<Reservation>> createReservation(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody Reservation reservation,
+            @AuthenticationPrincipal AuthenticatedUser caller) throws JsonProcessingException {
+        if (!ReservationController.assignOwner(reservation, caller)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+        }
+        String key = idempotencyKey == null ? null : caller.userId() + ":" + idempotencyKey;
+        String fingerprint = IdempotencyStore.fingerprint(objectMapper.writeValueAsBytes(reservation));
+        return idempotencyStore.execute(key, fingerprint, () -> reservationService.createReservation(reservation))
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping
+    public Flux<Reservation> getAll() {
+        return reservationService.getAllReservations();
+    }
+
+    @GetMapping("/page")
+    public Mono<ResponseEntity<ReservationPage>> getPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return reservationService.getReservationsPage(cursor, limit).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public Flux<Reservation> export() {
+        return reservationService.streamAllReservations();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Reservation>> getById(@PathVariable String id) {
+        return reservationService.getReservationById(id).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/user/{userId}")
+    public Flux<Reservation> getByUserId(@PathVariable String userId) {
+        return reservationService.getReservationsByUserId(userId);
+    }
+
+    @GetMapping("/user/{userId}/summary")
+    public Mono<ResponseEntity<Map<String, Object>>> getUserSummary(@PathVariable String userId) {
+        return reservationService.getUserReservationSummary(userId).map(ResponseEntity::ok);
+    }
+
+    @PutMapping("/{id}/confirm")
+    public Mono<ResponseEntity<Reservation>> confirm(@PathVariable String id,
+                                                     @AuthenticationPrincipal AuthenticatedUser caller) {
+        return reservationService.getReservationById(id).flatMap(reservation ->
+                ReservationController.canManage(reservation, caller)
+                        ? reservationService.confirmReservation(id).map(ResponseEntity::ok)
+                        : Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).<Reservation>build()));
+    }
+
+    @PutMapping("/{id}/cancel")
+    public Mono<ResponseEntity<Reservation>> cancel(@PathVariable String id,
+                                                    @AuthenticationPrincipal AuthenticatedUser caller) {
+        return reservationService.getReservationById(id).flatMap(reservation ->
+                ReservationController.canManage(reservation, caller)
+                        ? reservationService.cancelReservation(id).map(ResponseEntity::ok)
+                        : Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).<Reservation>build()));
+    }
+}
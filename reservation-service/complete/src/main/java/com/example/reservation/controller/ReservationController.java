@@ -1,25 +1,63 @@
 package com.example.reservation.controller;
 
+import com.bookfair.auth.AuthenticatedUser;
+import com.bookfair.idempotency.IdempotencyStore;
 import com.example.reservation.model.Reservation;
+import com.example.reservation.model.ReservationPage;
 import com.example.reservation.service.ReservationService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/reservations")
 @RequiredArgsConstructor
 @CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ReservationController {
 
     private final ReservationService reservationService;
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
-    public ResponseEntity<Reservation> createReservation(@RequestBody Reservation reservation) {
-        return ResponseEntity.ok(reservationService.createReservation(reservation));
+    public ResponseEntity<Reservation> createReservation(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody Reservation reservation,
+            @AuthenticationPrincipal AuthenticatedUser caller) throws JsonProcessingException {
+        if (!assignOwner(reservation, caller)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        String key = idempotencyKey == null ? null : caller.userId() + ":" + idempotencyKey;
+        String fingerprint = IdempotencyStore.fingerprint(objectMapper.writeValueAsBytes(reservation));
+        return ResponseEntity.ok(idempotencyStore.execute(key, fingerprint,
+                () -> reservationService.createReservation(reservation)));
+    }
+
+    // A reservation belongs to the caller; only staff may book on behalf of another user
+    static boolean assignOwner(Reservation reservation, AuthenticatedUser caller) {
+        if (reservation.getUserId() == null || reservation.getUserId().isBlank()) {
+            reservation.setUserId(caller.userId());
+            return true;
+        }
+        return reservation.getUserId().equals(caller.userId()) || caller.hasRole("EMPLOYEE");
+    }
+
+    // Only the owner or staff may change an existing reservation
+    static boolean canManage(Reservation reservation, AuthenticatedUser caller) {
+        return caller.userId().equals(reservation.getUserId()) || caller.hasRole("EMPLOYEE");
     }
 
     @GetMapping
@@ -27,6 +65,29 @@ public class ReservationController {
         return ResponseEntity.ok(reservationService.getAllReservations());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<ReservationPage> getPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(reservationService.getReservationsPage(cursor, limit));
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = out -> {
+            try (Stream<Reservation> reservations = reservationService.streamAllReservations()) {
+                Iterator<Reservation> iterator = reservations.iterator();
+                while (iterator.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Reservation> getById(@PathVariable String id) {
         return ResponseEntity.ok(reservationService.getReservationById(id));
@@ -43,12 +104,20 @@ public class ReservationController {
     }
 
     @PutMapping("/{id}/confirm")
-    public ResponseEntity<Reservation> confirm(@PathVariable String id) {
+    public ResponseEntity<Reservation> confirm(@PathVariable String id,
+                                               @AuthenticationPrincipal AuthenticatedUser caller) {
+        if (!canManage(reservationService.getReservationById(id), caller)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
         return ResponseEntity.ok(reservationService.confirmReservation(id));
     }
 
     @PutMapping("/{id}/cancel")
-    public ResponseEntity<Reservation> cancel(@PathVariable String id) {
+    public ResponseEntity<Reservation> cancel(@PathVariable String id,
+                                              @AuthenticationPrincipal AuthenticatedUser caller) {
+        if (!canManage(reservationService.getReservationById(id), caller)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
         return ResponseEntity.ok(reservationService.cancelReservation(id));
     }
 }
\ No newline at end of file
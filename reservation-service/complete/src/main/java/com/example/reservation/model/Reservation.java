@@ -2,6 +2,8 @@ package com.example.reservation.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -11,6 +13,12 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Document(collection = "reservations")
+@CompoundIndexes({
+        // Serves the per-user summary and the active-count rebuild
+        @CompoundIndex(name = "user_status_idx", def = "{'userId': 1, 'status': 1}"),
+        @CompoundIndex(name = "status_reserve_date_idx", def = "{'status': 1, 'reserveDate': 1}"),
+        @CompoundIndex(name = "stall_status_idx", def = "{'stallId': 1, 'status': 1}")
+})
 public class Reservation {
     @Id
     private String reservationId;
@@ -0,0 +1,16 @@
+package com.example.reservation.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationPage {
+    private List<Reservation> items;
+    // Pass back as cursor to fetch the next page; null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,15 @@
+package com.example.reservation.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationSummary {
+    private List<Reservation> reservations;
+    private long activeCount;
+}
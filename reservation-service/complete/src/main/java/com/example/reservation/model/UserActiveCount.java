@@ -0,0 +1,15 @@
+package com.example.reservation.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserActiveCount {
+    @Id
+    private String userId;
+    private long count;
+}
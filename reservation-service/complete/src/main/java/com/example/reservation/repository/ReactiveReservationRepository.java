@@ -0,0 +1,33 @@
+package com.example.reservation.repository;
+
+import com.example.reservation.model.Reservation;
+import com.example.reservation.model.ReservationSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Non-blocking counterpart of ReservationRepository, used when running with the reactive profile
+@Repository
+public interface ReactiveReservationRepository extends ReactiveMongoRepository<Reservation, String> {
+
+    // Find all reservations by userId
+    Flux<Reservation> findByUserId(String userId);
+
+    // Keyset pagination over _id
+    Flux<Reservation> findAllByOrderByReservationIdAsc(Pageable pageable);
+
+    Flux<Reservation> findByReservationIdGreaterThanOrderByReservationIdAsc(String cursor, Pageable pageable);
+
+    // All of a user's reservations and their active count in one round trip
+    @Aggregation(pipeline = {
+            "{ '$match': { 'userId': ?0 } }",
+            "{ '$facet': { 'reservations': [ { '$match': {} } ], "
+                    + "'active': [ { '$match': { 'status': { '$ne': 'CANCELLED' } } }, { '$count': 'count' } ] } }",
+            "{ '$project': { 'reservations': 1, "
+                    + "'activeCount': { '$ifNull': [ { '$arrayElemAt': [ '$active.count', 0 ] }, 0 ] } } }"
+    })
+    Mono<ReservationSummary> summarizeByUserId(String userId);
+}
@@ -1,6 +1,10 @@
 package com.example.reservation.repository;
 
 import com.example.reservation.model.Reservation;
+import com.example.reservation.model.ReservationSummary;
+import com.example.reservation.model.UserActiveCount;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -15,9 +19,28 @@ public interface ReservationRepository extends MongoRepository<Reservation, Stri
     // Find active reservations (not cancelled) by userId
     List<Reservation> findByUserIdAndStatusNot(String userId, String status);
     
-    // Count active reservations for a user
-    long countByUserIdAndStatusNot(String userId, String status);
-    
     // Find by userId and status
     List<Reservation> findByUserIdAndStatus(String userId, String status);
+
+    // Keyset pagination over _id
+    List<Reservation> findAllByOrderByReservationIdAsc(Pageable pageable);
+
+    List<Reservation> findByReservationIdGreaterThanOrderByReservationIdAsc(String cursor, Pageable pageable);
+
+    // All of a user's reservations and their active count in one round trip
+    @Aggregation(pipeline = {
+            "{ '$match': { 'userId': ?0 } }",
+            "{ '$facet': { 'reservations': [ { '$match': {} } ], "
+                    + "'active': [ { '$match': { 'status': { '$ne': 'CANCELLED' } } }, { '$count': 'count' } ] } }",
+            "{ '$project': { 'reservations': 1, "
+                    + "'activeCount': { '$ifNull': [ { '$arrayElemAt': [ '$active.count', 0 ] }, 0 ] } } }"
+    })
+    ReservationSummary summarizeByUserId(String userId);
+
+    // Active reservation count for every user, used to rebuild the in-memory counters
+    @Aggregation(pipeline = {
+            "{ '$match': { 'status': { '$ne': 'CANCELLED' } } }",
+            "{ '$group': { '_id': '$userId', 'count': { '$sum': 1 } } }"
+    })
+    List<UserActiveCount> countActiveByUser();
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.example.reservation.service;
+
+import com.example.reservation.model.UserActiveCount;
+import com.example.reservation.repository.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Active (PENDING or CONFIRMED) reservation count per user, held in memory so the limit check
+ * is a compare-and-set instead of a Mongo count. Rebuilt from Mongo at startup; a slot is
+ * taken before a reservation is saved and given back when the save fails or it is cancelled.
+ */
+@Component
+@RequiredArgsConstructor
+public class ActiveReservationCounter {
+
+    private final ReservationRepository reservationRepository;
+    private final ConcurrentHashMap<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+    // Not synchronized: the rebuild queries Mongo and must not pin a virtual thread's carrier
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            ensureLoaded();
+        } catch (Exception e) {
+            System.err.println("Could not rebuild active reservation counts, will retry on first use: "
+                    + e.getMessage());
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean tryAcquire(String userId, int maxActive) {
+        ensureLoaded();
+        AtomicInteger count = counts.computeIfAbsent(userId, id -> new AtomicInteger());
+        int current;
+        do {
+            current = count.get();
+            if (current >= maxActive) {
+                return false;
+            }
+        } while (!count.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    public void release(String userId) {
+        if (userId == null) {
+            return;
+        }
+        AtomicInteger count = counts.get(userId);
+        if (count != null) {
+            count.updateAndGet(current -> Math.max(current - 1, 0));
+        }
+    }
+
+    public int activeCount(String userId) {
+        ensureLoaded();
+        AtomicInteger count = counts.get(userId);
+        return count == null ? 0 : count.get();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (!loaded) {
+                counts.clear();
+                for (UserActiveCount userCount : reservationRepository.countActiveByUser()) {
+                    // Legacy documents without a userId group under null and belong to no one
+                    if (userCount.getUserId() == null) {
+                        continue;
+                    }
+                    counts.put(userCount.getUserId(), new AtomicInteger((int) userCount.getCount()));
+                }
+                loaded = true;
+                System.out.println("Active reservation counts rebuilt for " + counts.size() + " users");
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.reservation.service;
+
+import com.example.reservation.config.RabbitMQConfig;
+import com.example.reservation.exception.ResourceNotFoundException;
+import com.example.reservation.model.Reservation;
+import com.example.reservation.model.ReservationPage;
+import com.example.reservation.repository.ReactiveReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking implementation of {@link ReservationService} for the reactive profile. Business
+ * rules are shared with the blocking service; only the I/O is different.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReservationService {
+
+    private final ReactiveReservationRepository reservationRepository;
+    private final ReservationNotifier reservationNotifier;
+    private final ActiveReservationCounter activeReservationCounter;
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public Mono<Reservation> createReservation(Reservation reservation) {
+        String userId = reservation.getUserId();
+        return Mono.defer(() -> {
+            // Set while this request holds a slot it has not yet turned into a saved reservation;
+            // an error or a cancelled subscription (client gone, timeout) before the save hands it back
+            AtomicBoolean slotHeld = new AtomicBoolean();
+
+            // Validate reservation limit before creating
+            return acquireSlot(userId, slotHeld).flatMap(acquired -> {
+                if (!acquired) {
+                    return Mono.error(ReservationService.limitExceeded(userId));
+                }
+
+                reservation.setReserveDate(LocalDateTime.now());
+                reservation.setStatus("PENDING");
+                return reservationRepository.save(reservation)
+                        .doOnNext(saved -> slotHeld.set(false))
+                        .flatMap(saved -> reservationNotifier
+                                .sendReactive(saved, "RESERVATION_CREATED", RabbitMQConfig.ROUTING_KEY_CREATED)
+                                .thenReturn(saved));
+            }).doFinally(signal -> {
+                if (slotHeld.getAndSet(false)) {
+                    activeReservationCounter.release(userId);
+                }
+            });
+        });
+    }
+
+    // Until the counts are rebuilt, taking a slot runs a blocking Mongo aggregation; keep that off the event loop
+    private Mono<Boolean> acquireSlot(String userId, AtomicBoolean slotHeld) {
+        Mono<Boolean> acquire = Mono.fromCallable(() -> {
+            boolean acquired = activeReservationCounter.tryAcquire(userId, ReservationService.MAX_RESERVATIONS_PER_USER);
+            slotHeld.set(acquired);
+            return acquired;
+        });
+        return activeReservationCounter.isLoaded() ? acquire : acquire.subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<Reservation> confirmReservation(String id) {
+        // Conditional update so a concurrent cancel cannot be overwritten by the confirm
+        return mongoTemplate.findAndModify(
+                        ReservationService.confirmableQuery(id),
+                        ReservationService.confirmUpdate(),
+                        FindAndModifyOptions.options().returnNew(true),
+                        Reservation.class)
+                .switchIfEmpty(getReservationById(id)
+                        .doOnNext(ReservationService::checkConfirmable)
+                        .then(Mono.error(new IllegalStateException("Reservation can no longer be confirmed"))))
+                .flatMap(updated -> reservationNotifier
+                        .sendReactive(updated, "RESERVATION_CONFIRMED", RabbitMQConfig.ROUTING_KEY_CONFIRMED)
+                        .thenReturn(updated));
+    }
+
+    public Mono<Reservation> cancelReservation(String id) {
+        // Conditional update so two concurrent cancels can only release the user's slot once
+        return mongoTemplate.findAndModify(
+                        Query.query(Criteria.where("_id").is(id).and("status").ne("CANCELLED")),
+                        Update.update("status", "CANCELLED"),
+                        FindAndModifyOptions.options().returnNew(true),
+                        Reservation.class)
+                .switchIfEmpty(getReservationById(id)
+                        .then(Mono.error(new IllegalStateException("Reservation is already cancelled"))))
+                .doOnNext(updated -> activeReservationCounter.release(updated.getUserId()))
+                .flatMap(updated -> reservationNotifier
+                        .sendReactive(updated, "RESERVATION_CANCELLED", RabbitMQConfig.ROUTING_KEY_CANCELLED)
+                        .thenReturn(updated));
+    }
+
+    public Mono<Map<String, Object>> getUserReservationSummary(String userId) {
+        return reservationRepository.summarizeByUserId(userId)
+                .map(summary -> ReservationService.summaryOf(userId, summary));
+    }
+
+    public Mono<Reservation> getReservationById(String id) {
+        return reservationRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Reservation not found with id: " + id)));
+    }
+
+    public Flux<Reservation> getAllReservations() {
+        return reservationRepository.findAll();
+    }
+
+    public Mono<ReservationPage> getReservationsPage(String cursor, int limit) {
+        int pageSize = ReservationService.pageSize(limit);
+        // One extra row tells us whether another page follows
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+        Flux<Reservation> rows = cursor == null || cursor.isBlank()
+                ? reservationRepository.findAllByOrderByReservationIdAsc(pageRequest)
+                : reservationRepository.findByReservationIdGreaterThanOrderByReservationIdAsc(cursor, pageRequest);
+        return rows.collectList().map(list -> ReservationService.pageOf(list, pageSize));
+    }
+
+    public Flux<Reservation> streamAllReservations() {
+        return mongoTemplate.find(new Query().with(Sort.by("_id")), Reservation.class);
+    }
+
+    public Flux<Reservation> getReservationsByUserId(String userId) {
+        return reservationRepository.findByUserId(userId);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.reservation.service;
+
+import com.example.reservation.config.RabbitMQConfig;
+import com.example.reservation.model.Reservation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+public class ReservationNotifier {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+
+    public void send(Reservation reservation, String event, String routingKey) {
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("event", event);
+            payload.put("reservationId", reservation.getReservationId());
+            payload.put("userId", reservation.getUserId());
+            payload.put("email", reservation.getEmail());
+            payload.put("status", reservation.getStatus());
+            payload.put("amount", reservation.getAmount());
+            payload.put("stallId", reservation.getStallId());
+            payload.put("reserveDate", reservation.getReserveDate() != null ? reservation.getReserveDate().toString() : null);
+            payload.put("reserveConfirmDate", reservation.getReserveConfirmDate() != null ? reservation.getReserveConfirmDate().toString() : null);
+
+            String jsonMessage = objectMapper.writeValueAsString(payload);
+            
+            System.out.println("   Sending notification to RabbitMQ");
+            System.out.println("   Event: " + event);
+            System.out.println("   Exchange: " + RabbitMQConfig.EXCHANGE);
+            System.out.println("   Routing Key: " + routingKey);
+            
+            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE, routingKey, jsonMessage);
+            
+            System.out.println("Notification sent successfully");
+        } catch (JsonProcessingException e) {
+            System.err.println("Failed to serialize message: " + e.getMessage());
+            e.printStackTrace();
+        } catch (Exception e) {
+            System.err.println("Failed to send notification: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Same as {@link #send} but runs the broker write on the bounded elastic scheduler,
+     * so reactive callers never block an event loop thread on the AMQP channel
+     */
+    public Mono<Void> sendReactive(Reservation reservation, String event, String routingKey) {
+        return Mono.fromRunnable(() -> send(reservation, event, routingKey))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+}
@@ -4,27 +4,36 @@ import com.example.reservation.config.RabbitMQConfig;
 import com.example.reservation.exception.ReservationLimitExceededException;
 import com.example.reservation.exception.ResourceNotFoundException;
 import com.example.reservation.model.Reservation;
+import com.example.reservation.model.ReservationPage;
+import com.example.reservation.model.ReservationSummary;
 import com.example.reservation.repository.ReservationRepository;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ReservationService {
 
     private final ReservationRepository reservationRepository;
-    private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
+    private final ReservationNotifier reservationNotifier;
+    private final ActiveReservationCounter activeReservationCounter;
+    private final MongoTemplate mongoTemplate;
     
-    private static final int MAX_RESERVATIONS_PER_USER = 3;
+    static final int MAX_RESERVATIONS_PER_USER = 3;
+    private static final int MAX_PAGE_SIZE = 100;
 
     public Reservation createReservation(Reservation reservation) {
         // Validate reservation limit before creating
@@ -32,68 +41,95 @@ public class ReservationService {
         
         reservation.setReserveDate(LocalDateTime.now());
         reservation.setStatus("PENDING");
-        Reservation saved = reservationRepository.save(reservation);
+        Reservation saved;
+        try {
+            saved = reservationRepository.save(reservation);
+        } catch (RuntimeException e) {
+            activeReservationCounter.release(reservation.getUserId());
+            throw e;
+        }
 
         System.out.println("   Reservation saved: " + saved.getReservationId());
         System.out.println("   User: " + saved.getUserId() + " | Stall: " + saved.getStallId());
         
-        sendNotification(saved, "RESERVATION_CREATED", RabbitMQConfig.ROUTING_KEY_CREATED);
+        reservationNotifier.send(saved, "RESERVATION_CREATED", RabbitMQConfig.ROUTING_KEY_CREATED);
         return saved;
     }
 
     public Reservation confirmReservation(String id) {
-        Reservation res = getReservationById(id);
-        
-        if ("CONFIRMED".equals(res.getStatus())) {
-            throw new IllegalStateException("Reservation is already confirmed");
-        }
-        
-        if ("CANCELLED".equals(res.getStatus())) {
-            throw new IllegalStateException("Cannot confirm a cancelled reservation");
+        // Conditional update so a concurrent cancel cannot be overwritten by the confirm
+        Reservation updated = mongoTemplate.findAndModify(
+                confirmableQuery(id),
+                confirmUpdate(),
+                FindAndModifyOptions.options().returnNew(true),
+                Reservation.class);
+        if (updated == null) {
+            checkConfirmable(getReservationById(id));
+            throw new IllegalStateException("Reservation can no longer be confirmed");
         }
-        
-        res.setStatus("CONFIRMED");
-        res.setReserveConfirmDate(LocalDateTime.now());
-
-        Reservation updated = reservationRepository.save(res);
         System.out.println("Reservation confirmed: " + updated.getReservationId());
         
-        sendNotification(updated, "RESERVATION_CONFIRMED", RabbitMQConfig.ROUTING_KEY_CONFIRMED);
+        reservationNotifier.send(updated, "RESERVATION_CONFIRMED", RabbitMQConfig.ROUTING_KEY_CONFIRMED);
         return updated;
     }
 
     public Reservation cancelReservation(String id) {
-        Reservation res = getReservationById(id);
-        
-        if ("CANCELLED".equals(res.getStatus())) {
+        // Conditional update so two concurrent cancels can only release the user's slot once
+        Reservation updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id).and("status").ne("CANCELLED")),
+                Update.update("status", "CANCELLED"),
+                FindAndModifyOptions.options().returnNew(true),
+                Reservation.class);
+        if (updated == null) {
+            getReservationById(id);
             throw new IllegalStateException("Reservation is already cancelled");
         }
-        
-        res.setStatus("CANCELLED");
-        Reservation updated = reservationRepository.save(res);
+        activeReservationCounter.release(updated.getUserId());
         
         System.out.println("Reservation cancelled: " + updated.getReservationId());
         
-        sendNotification(updated, "RESERVATION_CANCELLED", RabbitMQConfig.ROUTING_KEY_CANCELLED);
+        reservationNotifier.send(updated, "RESERVATION_CANCELLED", RabbitMQConfig.ROUTING_KEY_CANCELLED);
         return updated;
     }
     
     /**
-     * Validates if user can create a new reservation
+     * Validates if user can create a new reservation and takes one of their slots
      * Maximum 3 active reservations per user (PENDING or CONFIRMED status)
      */
     private void validateReservationLimit(String userId) {
-        long activeReservations = reservationRepository.countByUserIdAndStatusNot(userId, "CANCELLED");
+        boolean acquired = activeReservationCounter.tryAcquire(userId, MAX_RESERVATIONS_PER_USER);
         
         System.out.println("🔍 Checking reservation limit for user: " + userId);
-        System.out.println("   Active reservations: " + activeReservations + "/" + MAX_RESERVATIONS_PER_USER);
+        System.out.println("   Active reservations: " + activeReservationCounter.activeCount(userId) + "/" + MAX_RESERVATIONS_PER_USER);
+        
+        if (!acquired) {
+            throw limitExceeded(userId);
+        }
+    }
+
+    static ReservationLimitExceededException limitExceeded(String userId) {
+        return new ReservationLimitExceededException(
+            String.format("User %s has reached the maximum limit of %d stall reservations. " +
+                         "Please cancel an existing reservation before creating a new one.",
+                         userId, MAX_RESERVATIONS_PER_USER)
+        );
+    }
+
+    static Query confirmableQuery(String id) {
+        return Query.query(Criteria.where("_id").is(id).and("status").in("PENDING"));
+    }
+
+    static Update confirmUpdate() {
+        return new Update().set("status", "CONFIRMED").set("reserveConfirmDate", LocalDateTime.now());
+    }
+
+    static void checkConfirmable(Reservation res) {
+        if ("CONFIRMED".equals(res.getStatus())) {
+            throw new IllegalStateException("Reservation is already confirmed");
+        }
         
-        if (activeReservations >= MAX_RESERVATIONS_PER_USER) {
-            throw new ReservationLimitExceededException(
-                String.format("User %s has reached the maximum limit of %d stall reservations. " +
-                             "Please cancel an existing reservation before creating a new one.",
-                             userId, MAX_RESERVATIONS_PER_USER)
-            );
+        if ("CANCELLED".equals(res.getStatus())) {
+            throw new IllegalStateException("Cannot confirm a cancelled reservation");
         }
     }
     
@@ -101,8 +137,12 @@ public class ReservationService {
      * Get user's reservation summary
      */
     public Map<String, Object> getUserReservationSummary(String userId) {
-        List<Reservation> allReservations = reservationRepository.findByUserId(userId);
-        long activeCount = reservationRepository.countByUserIdAndStatusNot(userId, "CANCELLED");
+        return summaryOf(userId, reservationRepository.summarizeByUserId(userId));
+    }
+
+    static Map<String, Object> summaryOf(String userId, ReservationSummary userSummary) {
+        List<Reservation> allReservations = userSummary.getReservations();
+        long activeCount = userSummary.getActiveCount();
         
         Map<String, Object> summary = new HashMap<>();
         summary.put("userId", userId);
@@ -116,38 +156,6 @@ public class ReservationService {
         return summary;
     }
 
-    private void sendNotification(Reservation reservation, String event, String routingKey) {
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("event", event);
-            payload.put("reservationId", reservation.getReservationId());
-            payload.put("userId", reservation.getUserId());
-            payload.put("email", reservation.getEmail());
-            payload.put("status", reservation.getStatus());
-            payload.put("amount", reservation.getAmount());
-            payload.put("stallId", reservation.getStallId());
-            payload.put("reserveDate", reservation.getReserveDate() != null ? reservation.getReserveDate().toString() : null);
-            payload.put("reserveConfirmDate", reservation.getReserveConfirmDate() != null ? reservation.getReserveConfirmDate().toString() : null);
-
-            String jsonMessage = objectMapper.writeValueAsString(payload);
-            
-            System.out.println("   Sending notification to RabbitMQ");
-            System.out.println("   Event: " + event);
-            System.out.println("   Exchange: " + RabbitMQConfig.EXCHANGE);
-            System.out.println("   Routing Key: " + routingKey);
-            
-            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE, routingKey, jsonMessage);
-            
-            System.out.println("Notification sent successfully");
-        } catch (JsonProcessingException e) {
-            System.err.println("Failed to serialize message: " + e.getMessage());
-            e.printStackTrace();
-        } catch (Exception e) {
-            System.err.println("Failed to send notification: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
     public Reservation getReservationById(String id) {
         return reservationRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with id: " + id));
@@ -156,6 +164,35 @@ public class ReservationService {
     public List<Reservation> getAllReservations() {
         return reservationRepository.findAll();
     }
+
+    public ReservationPage getReservationsPage(String cursor, int limit) {
+        int pageSize = pageSize(limit);
+        // One extra row tells us whether another page follows
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+        List<Reservation> rows = cursor == null || cursor.isBlank()
+                ? reservationRepository.findAllByOrderByReservationIdAsc(pageRequest)
+                : reservationRepository.findByReservationIdGreaterThanOrderByReservationIdAsc(cursor, pageRequest);
+        return pageOf(rows, pageSize);
+    }
+
+    static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    static ReservationPage pageOf(List<Reservation> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new ReservationPage(rows, null);
+        }
+        List<Reservation> items = rows.subList(0, pageSize);
+        return new ReservationPage(items, items.get(pageSize - 1).getReservationId());
+    }
+
+    /**
+     * Streams every reservation straight from a Mongo cursor; the caller must close the stream
+     */
+    public Stream<Reservation> streamAllReservations() {
+        return mongoTemplate.stream(new Query().with(Sort.by("_id")), Reservation.class);
+    }
     
     public List<Reservation> getReservationsByUserId(String userId) {
         return reservationRepository.findByUserId(userId);
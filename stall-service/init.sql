@@ -28,6 +28,38 @@ CREATE INDEX IF NOT EXISTS idx_stalls_reserved_by ON stalls(reserved_by);
 CREATE INDEX IF NOT EXISTS idx_stalls_reservation_id ON stalls(reservation_id);
 CREATE INDEX IF NOT EXISTS idx_stalls_position ON stalls(position_x, position_y);
 
+-- Create Outbox Table for stall events awaiting publication
+CREATE TABLE IF NOT EXISTS stall_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_id BIGINT NOT NULL,
+    routing_key VARCHAR(100) NOT NULL,
+    event_type VARCHAR(200) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    claimed_until TIMESTAMP WITH TIME ZONE
+    );
+
+-- The relay looks up the oldest event of each stall
+CREATE INDEX IF NOT EXISTS idx_stall_outbox_aggregate ON stall_outbox(aggregate_id, id);
+
+-- Outbox rows the relay could not turn back into an event, kept for inspection
+CREATE TABLE IF NOT EXISTS stall_outbox_dead_letter (
+    id BIGINT PRIMARY KEY,
+    aggregate_id BIGINT,
+    routing_key VARCHAR(100) NOT NULL,
+    event_type VARCHAR(200) NOT NULL,
+    payload TEXT NOT NULL,
+    error TEXT,
+    created_at TIMESTAMP,
+    failed_at TIMESTAMP NOT NULL
+    );
+
+-- Numeric ids for user-service accounts, as stored in stalls.reserved_by
+CREATE TABLE IF NOT EXISTS stall_users (
+    id BIGSERIAL PRIMARY KEY,
+    external_id VARCHAR(64) NOT NULL UNIQUE
+    );
+
 -- Insert Sample Data
 INSERT INTO stalls (stall_name, size, dimension, price, status, position_x, position_y, description) VALUES
 ('A1', 'SMALL', 10.0, 5000.00, 'AVAILABLE', 0, 0, 'Small stall at entrance area'),
@@ -1,8 +1,14 @@
 package com.cibf.stallservice.controller;
 
+import com.bookfair.auth.AuthenticatedUser;
+import com.bookfair.idempotency.IdempotencyStore;
+import com.cibf.stallservice.cache.StallListingSnapshots;
 import com.cibf.stallservice.dto.*;
 import com.cibf.stallservice.model.StallModel;
+import com.cibf.stallservice.service.StallOwnerResolver;
 import com.cibf.stallservice.service.StallService;
+import com.cibf.stallservice.stream.StallDeltaBroadcaster;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -10,12 +16,22 @@ import lombok.RequiredArgsConstructor;
 //import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/stalls")
@@ -26,6 +42,11 @@ import java.util.Map;
 public class StallController {
     private static final Logger log = LoggerFactory.getLogger(StallController.class);
     private final StallService stallService;
+    private final StallListingSnapshots listingSnapshots;
+    private final StallDeltaBroadcaster deltaBroadcaster;
+    private final IdempotencyStore idempotencyStore;
+    private final StallOwnerResolver ownerResolver;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @Operation(summary = "Create a new stall")
@@ -39,13 +60,75 @@ public class StallController {
 
     @GetMapping
     @Operation(summary = "Get all stalls")
-    public ResponseEntity<ApiResponse<List<StallResponseDTO>>> getAllStalls() {
+    public ResponseEntity<byte[]> getAllStalls(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("GET /api/stalls - Fetching all stalls");
-        List<StallResponseDTO> stalls = stallService.getAllStalls();
+        return snapshotResponse("all", ifNoneMatch, () ->
+                new ApiResponse<>(true, "Stalls retrieved successfully", stallService.getAllStalls()));
+    }
+
+    @GetMapping("/page")
+    @Operation(summary = "Get stalls one page at a time")
+    public ResponseEntity<ApiResponse<StallPageDTO>> getStallsPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        log.info("GET /api/stalls/page?cursor={}&limit={}", cursor, limit);
+        StallPageDTO page = stallService.getStallsPage(cursor, limit);
+        return ResponseEntity.ok(
+                new ApiResponse<>(true, "Stalls retrieved successfully", page));
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @Operation(summary = "Export all stalls as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> exportStalls() {
+        log.info("GET /api/stalls/export - Exporting all stalls");
+        StreamingResponseBody body = out -> stallService.exportStalls(stall -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(stall));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream stall status changes")
+    public SseEmitter streamStallChanges(
+            @RequestParam(required = false) Long sinceVersion,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        log.info("GET /api/stalls/stream - Subscribing to stall changes since {}", sinceVersion);
+        return deltaBroadcaster.subscribe(sinceVersion != null ? sinceVersion : lastEventId);
+    }
+
+    @GetMapping("/viewport")
+    @Operation(summary = "Get stalls inside a floor map viewport")
+    public ResponseEntity<ApiResponse<List<StallResponseDTO>>> getStallsInViewport(
+            @RequestParam Integer minX, @RequestParam Integer maxX,
+            @RequestParam Integer minY, @RequestParam Integer maxY,
+            @RequestParam(required = false) StallModel.StallSize size,
+            @RequestParam(required = false) StallModel.StallStatus status) {
+        log.info("GET /api/stalls/viewport?minX={}&maxX={}&minY={}&maxY={}", minX, maxX, minY, maxY);
+        List<StallResponseDTO> stalls = stallService.getStallsInViewport(minX, maxX, minY, maxY, size, status);
         return ResponseEntity.ok(
                 new ApiResponse<>(true, "Stalls retrieved successfully", stalls));
     }
 
+    @GetMapping("/nearest-available")
+    @Operation(summary = "Get the available stalls nearest to a point")
+    public ResponseEntity<ApiResponse<List<StallResponseDTO>>> getNearestAvailableStalls(
+            @RequestParam Integer x, @RequestParam Integer y,
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(required = false) StallModel.StallSize size) {
+        log.info("GET /api/stalls/nearest-available?x={}&y={}&limit={}", x, y, limit);
+        List<StallResponseDTO> stalls = stallService.getNearestAvailableStalls(x, y, limit, size);
+        return ResponseEntity.ok(
+                new ApiResponse<>(true, "Available stalls retrieved successfully", stalls));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get stall by ID")
     public ResponseEntity<ApiResponse<StallResponseDTO>> getStallById(@PathVariable Long id) {
@@ -67,31 +150,32 @@ public class StallController {
 
     @GetMapping("/available")
     @Operation(summary = "Get all available stalls")
-    public ResponseEntity<ApiResponse<List<StallResponseDTO>>> getAvailableStalls() {
+    public ResponseEntity<byte[]> getAvailableStalls(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("GET /api/stalls/available - Fetching available stalls");
-        List<StallResponseDTO> stalls = stallService.getAvailableStalls();
-        return ResponseEntity.ok(
-                new ApiResponse<>(true, "Available stalls retrieved successfully", stalls));
+        return snapshotResponse("available", ifNoneMatch, () ->
+                new ApiResponse<>(true, "Available stalls retrieved successfully",
+                        stallService.getAvailableStalls()));
     }
 
     @GetMapping("/size/{size}")
     @Operation(summary = "Get stalls by size")
-    public ResponseEntity<ApiResponse<List<StallResponseDTO>>> getStallsBySize(
-            @PathVariable StallModel.StallSize size) {
+    public ResponseEntity<byte[]> getStallsBySize(
+            @PathVariable StallModel.StallSize size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("GET /api/stalls/size/{} - Fetching stalls by size", size);
-        List<StallResponseDTO> stalls = stallService.getStallsBySize(size);
-        return ResponseEntity.ok(
-                new ApiResponse<>(true, "Stalls retrieved successfully", stalls));
+        return snapshotResponse("size:" + size, ifNoneMatch, () ->
+                new ApiResponse<>(true, "Stalls retrieved successfully", stallService.getStallsBySize(size)));
     }
 
     @GetMapping("/status/{status}")
     @Operation(summary = "Get stalls by status")
-    public ResponseEntity<ApiResponse<List<StallResponseDTO>>> getStallsByStatus(
-            @PathVariable StallModel.StallStatus status) {
+    public ResponseEntity<byte[]> getStallsByStatus(
+            @PathVariable StallModel.StallStatus status,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("GET /api/stalls/status/{} - Fetching stalls by status", status);
-        List<StallResponseDTO> stalls = stallService.getStallsByStatus(status);
-        return ResponseEntity.ok(
-                new ApiResponse<>(true, "Stalls retrieved successfully", stalls));
+        return snapshotResponse("status:" + status, ifNoneMatch, () ->
+                new ApiResponse<>(true, "Stalls retrieved successfully", stallService.getStallsByStatus(status)));
     }
 
     @GetMapping("/user/{userId}")
@@ -138,23 +222,64 @@ public class StallController {
     @Operation(summary = "Reserve a stall")
     public ResponseEntity<ApiResponse<StallResponseDTO>> reserveStall(
             @PathVariable Long stallId,
-            @RequestParam Long userId,
-            @RequestParam Long reservationId) {
-        log.info("POST /api/stalls/{}/reserve - Reserving stall for user {}", stallId, userId);
-        StallResponseDTO response = stallService.reserveStall(stallId, userId, reservationId);
+            @RequestParam(required = false) Long userId,
+            @RequestParam Long reservationId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @AuthenticationPrincipal AuthenticatedUser caller) {
+        Long ownerId = ownerResolver.resolveOwner(caller, userId);
+        log.info("POST /api/stalls/{}/reserve - Reserving stall for user {} (caller {})",
+                stallId, ownerId, caller.userId());
+        // Keys are scoped to the verified caller, so one user cannot replay another's key
+        String key = idempotencyKey == null ? null : "reserve:" + caller.userId() + ":" + idempotencyKey;
+        String fingerprint = IdempotencyStore.fingerprint(stallId + ":" + ownerId + ":" + reservationId);
+        StallResponseDTO response = idempotencyStore.execute(key, fingerprint,
+                () -> stallService.reserveStall(stallId, ownerId, reservationId));
         return ResponseEntity.ok(
                 new ApiResponse<>(true, "Stall reserved successfully", response));
     }
 
+    @PostMapping("/reserve-batch")
+    @Operation(summary = "Reserve several stalls at once")
+    public ResponseEntity<ApiResponse<List<StallResponseDTO>>> reserveStalls(
+            @Valid @RequestBody StallBatchReservationDTO requestDTO,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @AuthenticationPrincipal AuthenticatedUser caller) {
+        Long ownerId = ownerResolver.resolveOwner(caller, requestDTO.getUserId());
+        log.info("POST /api/stalls/reserve-batch - Reserving stalls {} for user {} (caller {})",
+                requestDTO.getStallIds(), ownerId, caller.userId());
+        String key = idempotencyKey == null ? null : "reserve-batch:" + caller.userId() + ":" + idempotencyKey;
+        String fingerprint = IdempotencyStore.fingerprint(ownerId + ":" + requestDTO.getStallIds() + ":"
+                + requestDTO.getReservationId());
+        List<StallResponseDTO> response = idempotencyStore.execute(key, fingerprint, () -> stallService.reserveStalls(
+                requestDTO.getStallIds(), ownerId, requestDTO.getReservationId()));
+        return ResponseEntity.ok(
+                new ApiResponse<>(true, "Stalls reserved successfully", response));
+    }
+
     @PostMapping("/{stallId}/release")
     @Operation(summary = "Release a stall")
-    public ResponseEntity<ApiResponse<StallResponseDTO>> releaseStall(@PathVariable Long stallId) {
-        log.info("POST /api/stalls/{}/release - Releasing stall", stallId);
-        StallResponseDTO response = stallService.releaseStall(stallId);
+    public ResponseEntity<ApiResponse<StallResponseDTO>> releaseStall(
+            @PathVariable Long stallId,
+            @AuthenticationPrincipal AuthenticatedUser caller) {
+        log.info("POST /api/stalls/{}/release - Releasing stall (caller {})", stallId, caller.userId());
+        // Employees may release any stall; everyone else only their own
+        Long ownerId = caller.hasRole(StallOwnerResolver.EMPLOYEE) ? null : ownerResolver.ownerIdOf(caller);
+        StallResponseDTO response = stallService.releaseStall(stallId, ownerId);
         return ResponseEntity.ok(
                 new ApiResponse<>(true, "Stall released successfully", response));
     }
 
+    @GetMapping("/{stallId}/adjacent-available")
+    @Operation(summary = "Get available stalls adjacent to a stall")
+    public ResponseEntity<ApiResponse<List<StallResponseDTO>>> getAdjacentAvailableStalls(
+            @PathVariable Long stallId,
+            @RequestParam(required = false) StallModel.StallSize size) {
+        log.info("GET /api/stalls/{}/adjacent-available - Fetching adjacent free stalls", stallId);
+        List<StallResponseDTO> stalls = stallService.getAdjacentAvailableStalls(stallId, size);
+        return ResponseEntity.ok(
+                new ApiResponse<>(true, "Adjacent available stalls retrieved successfully", stalls));
+    }
+
     @GetMapping("/{stallId}/availability")
     @Operation(summary = "Check stall availability")
     public ResponseEntity<ApiResponse<StallAvailabilityDTO>> checkStallAvailability(
@@ -178,4 +303,24 @@ public class StallController {
         return ResponseEntity.ok(
                 new ApiResponse<>(true, "User reservation limit checked", response));
     }
-}
\ No newline at end of file
+
+    // Serves a pre-serialized listing; a matching If-None-Match is answered before the service is called
+    private ResponseEntity<byte[]> snapshotResponse(String key, String ifNoneMatch,
+                                                    Supplier<ApiResponse<List<StallResponseDTO>>> response) {
+        StallListingSnapshots.Snapshot snapshot = listingSnapshots.current(key);
+        if (snapshot == null) {
+            snapshot = listingSnapshots.get(key, response);
+        }
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.body());
+    }
+}
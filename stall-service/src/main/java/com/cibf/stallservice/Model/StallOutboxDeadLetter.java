@@ -0,0 +1,43 @@
+package com.cibf.stallservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outbox row the relay could not turn back into an event. Kept with its original id and
+ * payload so it can be inspected and replayed by hand.
+ */
+@Entity
+@Table(name = "stall_outbox_dead_letter")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StallOutboxDeadLetter {
+    @Id
+    private Long id;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(name = "routing_key", nullable = false, length = 100)
+    private String routingKey;
+
+    @Column(name = "event_type", nullable = false, length = 200)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+}
@@ -0,0 +1,41 @@
+package com.cibf.stallservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "stall_outbox", indexes = @Index(name = "idx_stall_outbox_aggregate", columnList = "aggregate_id, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StallOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(name = "routing_key", nullable = false, length = 100)
+    private String routingKey;
+
+    @Column(name = "event_type", nullable = false, length = 200)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    // Set while a relay is publishing the row; an expired claim is picked up again
+    @Column(name = "claimed_until", columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime claimedUntil;
+}
@@ -0,0 +1,24 @@
+package com.cibf.stallservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Maps a user-service account id (a UUID string) onto the numeric id stored in
+ * {@link StallModel#getReservedBy()}.
+ */
+@Entity
+@Table(name = "stall_users")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StallUser {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "external_id", nullable = false, unique = true, length = 64)
+    private String externalId;
+}
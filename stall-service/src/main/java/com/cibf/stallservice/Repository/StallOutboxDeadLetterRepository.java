@@ -0,0 +1,9 @@
+package com.cibf.stallservice.repository;
+
+import com.cibf.stallservice.model.StallOutboxDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StallOutboxDeadLetterRepository extends JpaRepository<StallOutboxDeadLetter, Long> {
+}
@@ -0,0 +1,34 @@
+package com.cibf.stallservice.repository;
+
+import com.cibf.stallservice.model.StallOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StallOutboxRepository extends JpaRepository<StallOutboxEvent, Long> {
+    // Oldest unclaimed event of each stall. A stall whose oldest event is locked or claimed
+    // by another relay is skipped entirely, so no relay can overtake an earlier event of it.
+    // The NOT EXISTS probe is an index lookup on (aggregate_id, id)
+    @Query(value = "SELECT * FROM stall_outbox o " +
+            "WHERE (o.claimed_until IS NULL OR o.claimed_until < now()) " +
+            "AND NOT EXISTS (SELECT 1 FROM stall_outbox p " +
+            "WHERE p.aggregate_id = o.aggregate_id AND p.id < o.id) " +
+            "ORDER BY o.id LIMIT :batchSize FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<StallOutboxEvent> lockNextBatch(@Param("batchSize") int batchSize);
+
+    // Marks rows as being published so they stay reserved after the locking transaction ends
+    @Modifying
+    @Query(value = "UPDATE stall_outbox SET claimed_until = now() + :leaseMs * interval '1 millisecond' " +
+            "WHERE id IN (:ids)", nativeQuery = true)
+    int claim(@Param("ids") List<Long> ids, @Param("leaseMs") long leaseMs);
+
+    @Modifying
+    @Query(value = "UPDATE stall_outbox SET claimed_until = NULL WHERE id IN (:ids)", nativeQuery = true)
+    int releaseClaims(@Param("ids") List<Long> ids);
+}
@@ -1,13 +1,19 @@
 package com.cibf.stallservice.repository;
 
 import com.cibf.stallservice.model.StallModel;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface StallRepository extends JpaRepository<StallModel, Long> {
@@ -32,6 +38,41 @@ public interface StallRepository extends JpaRepository<StallModel, Long> {
     @Query("SELECT COUNT(s) FROM StallModel s WHERE s.reservedBy = :userId AND s.status = 'RESERVED'")
     long countReservedStallsByUser(@Param("userId") Long userId);
 
+    // Serializes a user's claims until the transaction ends, so the limit checks below cannot
+    // both pass under READ COMMITTED when two instances claim for the same user at once
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:userId)", nativeQuery = true)
+    Integer lockUserReservations(@Param("userId") Long userId);
+
+    // Claim a stall if it is still available and the user is below the limit; returns affected rows.
+    // Call lockUserReservations first in the same transaction
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StallModel s SET s.status = 'RESERVED', s.reservedBy = :userId, " +
+            "s.reservationId = :reservationId, s.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE s.id = :stallId AND s.status = 'AVAILABLE' " +
+            "AND (SELECT COUNT(o) FROM StallModel o WHERE o.reservedBy = :userId AND o.status = 'RESERVED') < :maxStalls")
+    int claimStall(@Param("stallId") Long stallId,
+                   @Param("userId") Long userId,
+                   @Param("reservationId") Long reservationId,
+                   @Param("maxStalls") long maxStalls);
+
+    // Claim several stalls at once; the caller rolls back unless every stall was claimed
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StallModel s SET s.status = 'RESERVED', s.reservedBy = :userId, " +
+            "s.reservationId = :reservationId, s.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE s.id IN :stallIds AND s.status = 'AVAILABLE' " +
+            "AND (SELECT COUNT(o) FROM StallModel o WHERE o.reservedBy = :userId AND o.status = 'RESERVED') <= :maxExisting")
+    int claimStalls(@Param("stallIds") List<Long> stallIds,
+                    @Param("userId") Long userId,
+                    @Param("reservationId") Long reservationId,
+                    @Param("maxExisting") long maxExisting);
+
+    // Release a stall if it is currently reserved; returns affected rows
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StallModel s SET s.status = 'AVAILABLE', s.reservedBy = NULL, " +
+            "s.reservationId = NULL, s.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE s.id = :stallId AND s.status = 'RESERVED'")
+    int releaseReservedStall(@Param("stallId") Long stallId);
+
     // Find available stalls
     @Query("SELECT s FROM StallModel s WHERE s.status = 'AVAILABLE' ORDER BY s.stallName")
     List<StallModel> findAllAvailableStalls();
@@ -49,6 +90,14 @@ public interface StallRepository extends JpaRepository<StallModel, Long> {
                                  @Param("minY") Integer minY,
                                  @Param("maxY") Integer maxY);
 
+    // Keyset pagination over id
+    List<StallModel> findByIdGreaterThanOrderByIdAsc(Long cursor, Pageable pageable);
+
+    // Stream every stall through a server-side cursor; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT s FROM StallModel s ORDER BY s.id")
+    Stream<StallModel> streamAllOrderById();
+
     // Check if StallModel name exists
     boolean existsByStallName(String stallName);
 
@@ -0,0 +1,13 @@
+package com.cibf.stallservice.repository;
+
+import com.cibf.stallservice.model.StallUser;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StallUserRepository extends JpaRepository<StallUser, Long> {
+    // Find the local id assigned to a user-service account
+    Optional<StallUser> findByExternalId(String externalId);
+}
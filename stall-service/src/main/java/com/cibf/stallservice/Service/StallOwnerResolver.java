@@ -0,0 +1,67 @@
+package com.cibf.stallservice.service;
+
+import com.bookfair.auth.AuthenticatedUser;
+import com.cibf.stallservice.exceptions.StallOwnershipException;
+import com.cibf.stallservice.model.StallUser;
+import com.cibf.stallservice.repository.StallUserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns the verified caller into the numeric owner id stalls are reserved under. The
+ * mapping never changes once assigned, so it is cached for the life of the process.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StallOwnerResolver {
+
+    public static final String EMPLOYEE = "EMPLOYEE";
+
+    private final StallUserRepository stallUserRepository;
+    private final ConcurrentHashMap<String, Long> ownerIds = new ConcurrentHashMap<>();
+
+    public Long ownerIdOf(AuthenticatedUser caller) {
+        Long cached = ownerIds.get(caller.userId());
+        if (cached != null) {
+            return cached;
+        }
+        Long ownerId = stallUserRepository.findByExternalId(caller.userId())
+                .map(StallUser::getId)
+                .orElseGet(() -> register(caller.userId()));
+        ownerIds.putIfAbsent(caller.userId(), ownerId);
+        return ownerId;
+    }
+
+    /**
+     * Resolves the owner a reservation is made for. Callers reserve for themselves; only
+     * employees may name a different owner.
+     */
+    public Long resolveOwner(AuthenticatedUser caller, Long requestedUserId) {
+        Long ownerId = ownerIdOf(caller);
+        if (requestedUserId == null || requestedUserId.equals(ownerId)) {
+            return ownerId;
+        }
+        if (!caller.hasRole(EMPLOYEE)) {
+            throw new StallOwnershipException("You can only reserve stalls for yourself");
+        }
+        return requestedUserId;
+    }
+
+    private Long register(String externalId) {
+        try {
+            Long ownerId = stallUserRepository.saveAndFlush(new StallUser(null, externalId)).getId();
+            log.info("Assigned stall owner id {} to user {}", ownerId, externalId);
+            return ownerId;
+        } catch (DataIntegrityViolationException e) {
+            // Another request registered the same user first
+            return stallUserRepository.findByExternalId(externalId)
+                    .map(StallUser::getId)
+                    .orElseThrow(() -> e);
+        }
+    }
+}
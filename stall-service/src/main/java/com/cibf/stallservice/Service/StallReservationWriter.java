@@ -0,0 +1,112 @@
+package com.cibf.stallservice.service;
+
+import com.cibf.stallservice.event.StallEventPublisher;
+import com.cibf.stallservice.event.StallReleasedEvent;
+import com.cibf.stallservice.event.StallReservedEvent;
+import com.cibf.stallservice.exceptions.ResourceNotFoundException;
+import com.cibf.stallservice.exceptions.StallReservationException;
+import com.cibf.stallservice.model.StallModel;
+import com.cibf.stallservice.repository.StallRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Persists reservation decisions already taken by the floor plan engine. Kept in its own
+ * bean so the transaction (and the pooled connection) is only opened once a claim has won.
+ * Each write is a single conditional UPDATE, taken under a per-user advisory lock so the
+ * per-user limit holds across instances too; the database stays the final arbiter even
+ * when another instance changed the row behind the engine's back. Events are recorded in
+ * the outbox within the same transaction, so they exist exactly when the change does.
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional
+public class StallReservationWriter {
+
+    private final StallRepository stallRepository;
+    private final StallEventPublisher eventPublisher;
+
+    public StallModel writeReservation(Long stallId, Long userId, Long reservationId, int maxStallsPerUser) {
+        stallRepository.lockUserReservations(userId);
+        if (stallRepository.claimStall(stallId, userId, reservationId, maxStallsPerUser) == 0) {
+            throw rejectedClaim(stallId, maxStallsPerUser);
+        }
+        StallModel reservedStall = loadStall(stallId);
+
+        // Publish event
+        eventPublisher.publishStallReservedEvent(reservedEvent(reservedStall, LocalDateTime.now()));
+        return reservedStall;
+    }
+
+    public List<StallModel> writeReservations(List<Long> stallIds, Long userId, Long reservationId,
+                                              int maxStallsPerUser) {
+        stallRepository.lockUserReservations(userId);
+        // Counted before the claim, which may already have updated some rows when it falls short
+        long alreadyReserved = stallRepository.countReservedStallsByUser(userId);
+        int claimed = stallRepository.claimStalls(stallIds, userId, reservationId,
+                maxStallsPerUser - stallIds.size());
+        if (claimed != stallIds.size()) {
+            if (alreadyReserved + stallIds.size() > maxStallsPerUser) {
+                throw new StallReservationException("User has reached maximum stall reservation limit of " +
+                        maxStallsPerUser);
+            }
+            throw new StallReservationException("One or more stalls are not available for reservation");
+        }
+        List<StallModel> reservedStalls = stallRepository.findAllById(stallIds);
+
+        // One event per stall, so each stays ordered with that stall's later events
+        LocalDateTime reservedAt = LocalDateTime.now();
+        for (StallModel stall : reservedStalls) {
+            eventPublisher.publishStallReservedEvent(reservedEvent(stall, reservedAt));
+        }
+        return reservedStalls;
+    }
+
+    public StallModel writeRelease(Long stallId, Long previousUserId) {
+        if (stallRepository.releaseReservedStall(stallId) == 0) {
+            loadStall(stallId);
+            throw new StallReservationException("Stall is not currently reserved");
+        }
+        StallModel releasedStall = loadStall(stallId);
+
+        // Publish event
+        StallReleasedEvent event = StallReleasedEvent.builder()
+                .stallId(stallId)
+                .stallName(releasedStall.getStallName())
+                .userId(previousUserId)
+                .releasedAt(LocalDateTime.now())
+                .build();
+        eventPublisher.publishStallReleasedEvent(event);
+        return releasedStall;
+    }
+
+    private StallReservedEvent reservedEvent(StallModel stall, LocalDateTime reservedAt) {
+        return StallReservedEvent.builder()
+                .stallId(stall.getId())
+                .stallName(stall.getStallName())
+                .userId(stall.getReservedBy())
+                .reservationId(stall.getReservationId())
+                .price(stall.getPrice())
+                .reservedAt(reservedAt)
+                .build();
+    }
+
+    // Only reached by losers, to tell them why the claim did not win
+    private StallReservationException rejectedClaim(Long stallId, int maxStallsPerUser) {
+        StallModel stall = loadStall(stallId);
+        if (stall.getStatus() != StallModel.StallStatus.AVAILABLE) {
+            return new StallReservationException("Stall is not available for reservation");
+        }
+        return new StallReservationException("User has reached maximum stall reservation limit of " +
+                maxStallsPerUser);
+    }
+
+    private StallModel loadStall(Long stallId) {
+        return stallRepository.findById(stallId)
+                .orElseThrow(() -> new ResourceNotFoundException("Stall not found with ID: " + stallId));
+    }
+}
@@ -2,12 +2,14 @@ package com.cibf.stallservice.service;
 
 import com.cibf.stallservice.model.StallModel;
 import com.cibf.stallservice.dto.StallAvailabilityDTO;
+import com.cibf.stallservice.dto.StallPageDTO;
 import com.cibf.stallservice.dto.StallRequestDTO;
 import com.cibf.stallservice.dto.StallResponseDTO;
 import com.cibf.stallservice.dto.StallUpdateDTO;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public interface StallService {
@@ -16,6 +18,8 @@ public interface StallService {
     StallResponseDTO getStallById(Long id);
     StallResponseDTO getStallByName(String stallName);
     List<StallResponseDTO> getAllStalls();
+    StallPageDTO getStallsPage(Long cursor, int limit);
+    void exportStalls(Consumer<StallResponseDTO> sink);
     List<StallResponseDTO> getAvailableStalls();
     List<StallResponseDTO> getStallsBySize(StallModel.StallSize size);
     List<StallResponseDTO> getStallsByStatus(StallModel.StallStatus status);
@@ -23,9 +27,15 @@ public interface StallService {
     StallResponseDTO updateStall(Long id, StallUpdateDTO updateDTO);
     void deleteStall(Long id);
     StallResponseDTO reserveStall(Long stallId, Long userId, Long reservationId);
+    List<StallResponseDTO> reserveStalls(List<Long> stallIds, Long userId, Long reservationId);
     StallResponseDTO releaseStall(Long stallId);
+    StallResponseDTO releaseStall(Long stallId, Long ownerId);
     StallAvailabilityDTO checkStallAvailability(Long stallId);
     boolean canUserReserveMoreStalls(Long userId);
     List<StallResponseDTO> getStallsByPriceRange(Double minPrice, Double maxPrice);
+    List<StallResponseDTO> getStallsInViewport(Integer minX, Integer maxX, Integer minY, Integer maxY,
+                                               StallModel.StallSize size, StallModel.StallStatus status);
+    List<StallResponseDTO> getNearestAvailableStalls(Integer x, Integer y, int limit, StallModel.StallSize size);
+    List<StallResponseDTO> getAdjacentAvailableStalls(Long stallId, StallModel.StallSize size);
 
 }
@@ -1,25 +1,38 @@
 package com.cibf.stallservice.service;
 
+import com.cibf.stallservice.cache.StallListingCache;
 import com.cibf.stallservice.model.StallModel;
 import com.cibf.stallservice.dto.StallAvailabilityDTO;
+import com.cibf.stallservice.dto.StallPageDTO;
 import com.cibf.stallservice.dto.StallRequestDTO;
 import com.cibf.stallservice.dto.StallResponseDTO;
 import com.cibf.stallservice.dto.StallUpdateDTO;
-import com.cibf.stallservice.event.StallEventPublisher;
-import com.cibf.stallservice.event.StallReleasedEvent;
-import com.cibf.stallservice.event.StallReservedEvent;
+import com.cibf.stallservice.engine.FloorPlanEngine;
+import com.cibf.stallservice.engine.StallSpatialIndex;
 import com.cibf.stallservice.exceptions.ResourceNotFoundException;
 import com.cibf.stallservice.exceptions.StallAlreadyExistsException;
+import com.cibf.stallservice.exceptions.StallOwnershipException;
 import com.cibf.stallservice.exceptions.StallReservationException;
 import com.cibf.stallservice.repository.StallRepository;
+import com.cibf.stallservice.stream.StallDeltaBroadcaster;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -28,8 +41,31 @@ import java.util.stream.Collectors;
 public class StallServiceImpl implements StallService {
 
     private final StallRepository stallRepository;
-    private final StallEventPublisher eventPublisher;
+    private final FloorPlanEngine floorPlanEngine;
+    private final StallReservationWriter reservationWriter;
+    private final StallListingCache listingCache;
+    private final StallDeltaBroadcaster deltaBroadcaster;
+    private final StallSpatialIndex spatialIndex;
+    private final EntityManager entityManager;
+    // A lock rather than synchronized, so a virtual thread waiting on the DB does not pin its carrier
+    private final ReentrantLock floorPlanLoadLock = new ReentrantLock();
     private static final int MAX_STALLS_PER_USER = 3;
+    private static final int MAX_NEAREST_RESULTS = 50;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Value("${stall.spatial.adjacency-radius:1}")
+    private int adjacencyRadius;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void loadFloorPlan() {
+        try {
+            loadFloorPlanState();
+        } catch (Exception e) {
+            log.warn("Floor plan could not be loaded at startup, will retry on first reservation: {}",
+                    e.getMessage());
+        }
+    }
 
     @Override
     public StallResponseDTO createStall(StallRequestDTO requestDTO) {
@@ -51,6 +87,12 @@ public class StallServiceImpl implements StallService {
         stall.setStatus(StallModel.StallStatus.AVAILABLE);
 
         StallModel savedStall = stallRepository.save(stall);
+        afterCommit(() -> {
+            floorPlanEngine.track(savedStall);
+            spatialIndex.put(mapToResponseDTO(savedStall));
+        });
+        listingCache.invalidate();
+        deltaBroadcaster.publish(savedStall);
         log.info("Stall created successfully with ID: {}", savedStall.getId());
 
         return mapToResponseDTO(savedStall);
@@ -75,39 +117,72 @@ public class StallServiceImpl implements StallService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<StallResponseDTO> getAllStalls() {
         log.info("Fetching all stalls");
-        return stallRepository.findAll().stream()
+        return listingCache.get("all", () -> stallRepository.findAll().stream()
+                .map(this::mapToResponseDTO)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StallPageDTO getStallsPage(Long cursor, int limit) {
+        log.info("Fetching stalls page after cursor {} with limit {}", cursor, limit);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // One extra row tells us whether another page follows
+        List<StallModel> rows = stallRepository.findByIdGreaterThanOrderByIdAsc(
+                cursor == null ? 0L : cursor, PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<StallResponseDTO> items = rows.stream()
+                .limit(pageSize)
                 .map(this::mapToResponseDTO)
                 .collect(Collectors.toList());
+        return StallPageDTO.builder()
+                .items(items)
+                .nextCursor(hasMore ? items.get(pageSize - 1).getId() : null)
+                .build();
     }
 
     @Override
     @Transactional(readOnly = true)
+    public void exportStalls(Consumer<StallResponseDTO> sink) {
+        log.info("Exporting all stalls");
+        try (Stream<StallModel> stalls = stallRepository.streamAllOrderById()) {
+            stalls.forEach(stall -> {
+                sink.accept(mapToResponseDTO(stall));
+                // Keep the persistence context from growing with the export
+                entityManager.detach(stall);
+            });
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<StallResponseDTO> getAvailableStalls() {
         log.info("Fetching available stalls");
-        return stallRepository.findAllAvailableStalls().stream()
+        return listingCache.get("available", () -> stallRepository.findAllAvailableStalls().stream()
                 .map(this::mapToResponseDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<StallResponseDTO> getStallsBySize(StallModel.StallSize size) {
         log.info("Fetching stalls by size: {}", size);
-        return stallRepository.findBySize(size).stream()
+        return listingCache.get("size:" + size, () -> stallRepository.findBySize(size).stream()
                 .map(this::mapToResponseDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<StallResponseDTO> getStallsByStatus(StallModel.StallStatus status) {
         log.info("Fetching stalls by status: {}", status);
-        return stallRepository.findByStatus(status).stream()
+        return listingCache.get("status:" + status, () -> stallRepository.findByStatus(status).stream()
                 .map(this::mapToResponseDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     @Override
@@ -144,6 +219,12 @@ public class StallServiceImpl implements StallService {
         if (updateDTO.getDescription() != null) stall.setDescription(updateDTO.getDescription());
 
         StallModel updatedStall = stallRepository.save(stall);
+        afterCommit(() -> {
+            floorPlanEngine.track(updatedStall);
+            spatialIndex.put(mapToResponseDTO(updatedStall));
+        });
+        listingCache.invalidate();
+        deltaBroadcaster.publish(updatedStall);
         log.info("Stall updated successfully with ID: {}", id);
 
         return mapToResponseDTO(updatedStall);
@@ -161,105 +242,158 @@ public class StallServiceImpl implements StallService {
         }
 
         stallRepository.deleteById(id);
+        afterCommit(() -> {
+            floorPlanEngine.untrack(id);
+            spatialIndex.remove(id);
+        });
+        listingCache.invalidate();
+        deltaBroadcaster.publishRemoved(id);
         log.info("Stall deleted successfully with ID: {}", id);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public StallResponseDTO reserveStall(Long stallId, Long userId, Long reservationId) {
         log.info("Reserving stall {} for user {}", stallId, userId);
+        ensureFloorPlanLoaded();
+
+        switch (floorPlanEngine.tryReserve(stallId, userId, MAX_STALLS_PER_USER)) {
+            case UNKNOWN_STALL -> throw new ResourceNotFoundException("Stall not found with ID: " + stallId);
+            case NOT_AVAILABLE -> throw new StallReservationException("Stall is not available for reservation");
+            case LIMIT_REACHED -> throw new StallReservationException(
+                    "User has reached maximum stall reservation limit of " + MAX_STALLS_PER_USER);
+            case RESERVED -> log.debug("Stall {} claimed in floor plan for user {}", stallId, userId);
+        }
 
-        StallModel stall = stallRepository.findById(stallId)
-                .orElseThrow(() -> new ResourceNotFoundException("Stall not found with ID: " + stallId));
+        StallModel reservedStall;
+        try {
+            reservedStall = reservationWriter.writeReservation(stallId, userId, reservationId, MAX_STALLS_PER_USER);
+        } catch (RuntimeException e) {
+            floorPlanEngine.undoReserve(stallId, userId);
+            resyncStall(stallId);
+            throw e;
+        }
+        listingCache.invalidate();
+        log.info("Stall {} reserved successfully for user {}", stallId, userId);
+
+        deltaBroadcaster.publish(reservedStall);
+        spatialIndex.put(mapToResponseDTO(reservedStall));
+
+        return mapToResponseDTO(reservedStall);
+    }
 
-        if (stall.getStatus() != StallModel.StallStatus.AVAILABLE) {
-            throw new StallReservationException("Stall is not available for reservation");
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<StallResponseDTO> reserveStalls(List<Long> stallIds, Long userId, Long reservationId) {
+        List<Long> distinctIds = stallIds.stream().distinct().collect(Collectors.toList());
+        log.info("Reserving stalls {} for user {}", distinctIds, userId);
+
+        if (distinctIds.size() > MAX_STALLS_PER_USER) {
+            throw new StallReservationException("Cannot reserve more than " + MAX_STALLS_PER_USER +
+                    " stalls at once");
+        }
+        ensureFloorPlanLoaded();
+
+        switch (floorPlanEngine.tryReserveAll(distinctIds, userId, MAX_STALLS_PER_USER)) {
+            case UNKNOWN_STALL -> throw new ResourceNotFoundException("One or more stalls were not found");
+            case NOT_AVAILABLE -> throw new StallReservationException(
+                    "One or more stalls are not available for reservation");
+            case LIMIT_REACHED -> throw new StallReservationException(
+                    "User has reached maximum stall reservation limit of " + MAX_STALLS_PER_USER);
+            case RESERVED -> log.debug("Stalls {} claimed in floor plan for user {}", distinctIds, userId);
         }
 
-        long userReservedCount = stallRepository.countReservedStallsByUser(userId);
-        if (userReservedCount >= MAX_STALLS_PER_USER) {
-            throw new StallReservationException("User has reached maximum stall reservation limit of " +
+        List<StallModel> reservedStalls;
+        try {
+            reservedStalls = reservationWriter.writeReservations(distinctIds, userId, reservationId,
                     MAX_STALLS_PER_USER);
+        } catch (RuntimeException e) {
+            distinctIds.forEach(stallId -> floorPlanEngine.undoReserve(stallId, userId));
+            distinctIds.forEach(this::resyncStall);
+            throw e;
         }
+        listingCache.invalidate();
+        log.info("Stalls {} reserved successfully for user {}", distinctIds, userId);
 
-        stall.setStatus(StallModel.StallStatus.RESERVED);
-        stall.setReservedBy(userId);
-        stall.setReservationId(reservationId);
-
-        StallModel reservedStall = stallRepository.save(stall);
-        log.info("Stall {} reserved successfully for user {}", stallId, userId);
+        reservedStalls.forEach(stall -> {
+            deltaBroadcaster.publish(stall);
+            spatialIndex.put(mapToResponseDTO(stall));
+        });
 
-        // Publish event
-        StallReservedEvent event = StallReservedEvent.builder()
-                .stallId(reservedStall.getId())
-                .stallName(reservedStall.getStallName())
-                .userId(userId)
-                .reservationId(reservationId)
-                .price(reservedStall.getPrice())
-                .reservedAt(LocalDateTime.now())
-                .build();
-        eventPublisher.publishStallReservedEvent(event);
-
-        return mapToResponseDTO(reservedStall);
+        return reservedStalls.stream()
+                .map(this::mapToResponseDTO)
+                .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public StallResponseDTO releaseStall(Long stallId) {
-        log.info("Releasing stall: {}", stallId);
+        return releaseStall(stallId, null);
+    }
 
-        StallModel stall = stallRepository.findById(stallId)
-                .orElseThrow(() -> new ResourceNotFoundException("Stall not found with ID: " + stallId));
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StallResponseDTO releaseStall(Long stallId, Long ownerId) {
+        log.info("Releasing stall: {}", stallId);
+        ensureFloorPlanLoaded();
 
-        if (stall.getStatus() != StallModel.StallStatus.RESERVED) {
+        if (floorPlanEngine.statusOf(stallId) == null) {
+            throw new ResourceNotFoundException("Stall not found with ID: " + stallId);
+        }
+        Long previousUserId = floorPlanEngine.tryRelease(stallId, ownerId);
+        if (previousUserId == null) {
+            Long holder = floorPlanEngine.reservedByOf(stallId);
+            if (ownerId != null && holder != null && !holder.equals(ownerId)) {
+                throw new StallOwnershipException("Stall is reserved by another user");
+            }
             throw new StallReservationException("Stall is not currently reserved");
         }
 
-        Long previousUserId = stall.getReservedBy();
-        String stallName = stall.getStallName();
-
-        stall.setStatus(StallModel.StallStatus.AVAILABLE);
-        stall.setReservedBy(null);
-        stall.setReservationId(null);
-
-        StallModel releasedStall = stallRepository.save(stall);
+        StallModel releasedStall;
+        try {
+            releasedStall = reservationWriter.writeRelease(stallId, previousUserId);
+        } catch (RuntimeException e) {
+            floorPlanEngine.undoRelease(stallId, previousUserId);
+            resyncStall(stallId);
+            throw e;
+        }
+        listingCache.invalidate();
         log.info("Stall {} released successfully", stallId);
 
-        // Publish event
-        StallReleasedEvent event = StallReleasedEvent.builder()
-                .stallId(stallId)
-                .stallName(stallName)
-                .userId(previousUserId)
-                .releasedAt(LocalDateTime.now())
-                .build();
-        eventPublisher.publishStallReleasedEvent(event);
+        deltaBroadcaster.publish(releasedStall);
+        spatialIndex.put(mapToResponseDTO(releasedStall));
 
         return mapToResponseDTO(releasedStall);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public StallAvailabilityDTO checkStallAvailability(Long stallId) {
         log.info("Checking availability for stall: {}", stallId);
+        ensureFloorPlanLoaded();
 
-        StallModel stall = stallRepository.findById(stallId)
-                .orElseThrow(() -> new ResourceNotFoundException("Stall not found with ID: " + stallId));
+        StallModel.StallStatus status = floorPlanEngine.statusOf(stallId);
+        if (status == null) {
+            throw new ResourceNotFoundException("Stall not found with ID: " + stallId);
+        }
 
-        boolean isAvailable = stall.getStatus() == StallModel.StallStatus.AVAILABLE;
+        boolean isAvailable = status == StallModel.StallStatus.AVAILABLE;
         String message = isAvailable ? "Stall is available" :
-                "Stall is " + stall.getStatus().name().toLowerCase();
+                "Stall is " + status.name().toLowerCase();
 
         return StallAvailabilityDTO.builder()
                 .stallId(stallId)
-                .stallName(stall.getStallName())
+                .stallName(floorPlanEngine.stallNameOf(stallId))
                 .isAvailable(isAvailable)
                 .message(message)
                 .build();
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean canUserReserveMoreStalls(Long userId) {
-        long count = stallRepository.countReservedStallsByUser(userId);
-        return count < MAX_STALLS_PER_USER;
+        ensureFloorPlanLoaded();
+        return floorPlanEngine.reservedCount(userId) < MAX_STALLS_PER_USER;
     }
 
     @Override
@@ -271,6 +405,94 @@ public class StallServiceImpl implements StallService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<StallResponseDTO> getStallsInViewport(Integer minX, Integer maxX, Integer minY, Integer maxY,
+                                                      StallModel.StallSize size, StallModel.StallStatus status) {
+        log.info("Fetching stalls in viewport x[{}, {}] y[{}, {}]", minX, maxX, minY, maxY);
+        if (minX > maxX || minY > maxY) {
+            throw new IllegalArgumentException("Viewport minimum must not exceed maximum");
+        }
+        ensureFloorPlanLoaded();
+        return spatialIndex.findInArea(minX, maxX, minY, maxY, size, status);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<StallResponseDTO> getNearestAvailableStalls(Integer x, Integer y, int limit,
+                                                            StallModel.StallSize size) {
+        log.info("Fetching {} nearest available stalls to ({}, {})", limit, x, y);
+        ensureFloorPlanLoaded();
+        return spatialIndex.findNearest(x, y, Math.min(limit, MAX_NEAREST_RESULTS), size,
+                StallModel.StallStatus.AVAILABLE);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<StallResponseDTO> getAdjacentAvailableStalls(Long stallId, StallModel.StallSize size) {
+        log.info("Fetching available stalls adjacent to stall {}", stallId);
+        ensureFloorPlanLoaded();
+        StallResponseDTO stall = spatialIndex.get(stallId);
+        if (stall == null) {
+            throw new ResourceNotFoundException("Stall not found with ID: " + stallId);
+        }
+        return spatialIndex.findInArea(
+                        stall.getPositionX() - adjacencyRadius, stall.getPositionX() + adjacencyRadius,
+                        stall.getPositionY() - adjacencyRadius, stall.getPositionY() + adjacencyRadius,
+                        size, StallModel.StallStatus.AVAILABLE).stream()
+                .filter(neighbour -> !neighbour.getId().equals(stallId))
+                .collect(Collectors.toList());
+    }
+
+    private void ensureFloorPlanLoaded() {
+        if (!floorPlanEngine.isLoaded()) {
+            floorPlanLoadLock.lock();
+            try {
+                if (!floorPlanEngine.isLoaded()) {
+                    loadFloorPlanState();
+                }
+            } finally {
+                floorPlanLoadLock.unlock();
+            }
+        }
+    }
+
+    private void loadFloorPlanState() {
+        List<StallModel> stalls = stallRepository.findAll();
+        spatialIndex.load(stalls.stream()
+                .map(this::mapToResponseDTO)
+                .collect(Collectors.toList()));
+        floorPlanEngine.load(stalls);
+    }
+
+    // Like the listing cache and broadcaster: a rolled back admin change must never reach the floor plan
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void resyncStall(Long stallId) {
+        try {
+            stallRepository.findById(stallId).ifPresentOrElse(stall -> {
+                floorPlanEngine.track(stall);
+                spatialIndex.put(mapToResponseDTO(stall));
+            }, () -> {
+                floorPlanEngine.untrack(stallId);
+                spatialIndex.remove(stallId);
+            });
+        } catch (Exception e) {
+            log.warn("Could not resync stall {} into floor plan: {}", stallId, e.getMessage());
+        }
+    }
+
     private StallResponseDTO mapToResponseDTO(StallModel stall) {
         return StallResponseDTO.builder()
                 .id(stall.getId())
@@ -0,0 +1,98 @@
+package com.cibf.stallservice.cache;
+
+import com.cibf.stallservice.dto.StallResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the stall listing projections. Every entry remembers the floor plan
+ * version it was loaded at and is only served while that version is current, so any write
+ * that bumps the version retires all listings at once.
+ */
+@Component
+@Slf4j
+public class StallListingCache {
+
+    private final AtomicLong version = new AtomicLong();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public StallListingCache(MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("stall.listing.cache.requests")
+                .tag("result", "hit")
+                .description("Stall listing reads served from the cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("stall.listing.cache.requests")
+                .tag("result", "miss")
+                .description("Stall listing reads that went to the database")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("stall.listing.cache.evictions")
+                .description("Cached stall listings retired by a floor plan change")
+                .register(meterRegistry);
+        Gauge.builder("stall.listing.cache.size", entries, Map::size)
+                .description("Stall listings currently cached")
+                .register(meterRegistry);
+        Gauge.builder("stall.floorplan.version", version, AtomicLong::get)
+                .description("Current floor plan version")
+                .register(meterRegistry);
+    }
+
+    public long currentVersion() {
+        return version.get();
+    }
+
+    public List<StallResponseDTO> get(String key, Supplier<List<StallResponseDTO>> loader) {
+        long current = version.get();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version() == current) {
+            hits.increment();
+            return entry.stalls();
+        }
+
+        misses.increment();
+        List<StallResponseDTO> stalls = List.copyOf(loader.get());
+        entries.put(key, new Entry(current, stalls));
+        return stalls;
+    }
+
+    /**
+     * Moves the floor plan to a new version. Inside a transaction this is deferred until
+     * commit, otherwise a concurrent reader could cache the pre-commit rows under the new version.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpVersion();
+                }
+            });
+        } else {
+            bumpVersion();
+        }
+    }
+
+    private void bumpVersion() {
+        long newVersion = version.incrementAndGet();
+        int retired = entries.size();
+        entries.clear();
+        evictions.increment(retired);
+        log.debug("Floor plan moved to version {}, retired {} cached listings", newVersion, retired);
+    }
+
+    private record Entry(long version, List<StallResponseDTO> stalls) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.cibf.stallservice.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Serialized listing responses, kept as UTF-8 bytes with a strong ETag derived from the
+ * content. A snapshot is reused until the floor plan version in {@link StallListingCache} moves.
+ */
+@Component
+@RequiredArgsConstructor
+public class StallListingSnapshots {
+
+    private final StallListingCache listingCache;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    public record Snapshot(long version, byte[] body, String etag) {
+
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // Returns the snapshot only if it still reflects the current floor plan
+    public Snapshot current(String key) {
+        Snapshot snapshot = snapshots.get(key);
+        return snapshot != null && snapshot.version() == listingCache.currentVersion() ? snapshot : null;
+    }
+
+    public Snapshot get(String key, Supplier<?> responseSupplier) {
+        long version = listingCache.currentVersion();
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null && snapshot.version() == version) {
+            return snapshot;
+        }
+
+        byte[] body = serialize(responseSupplier.get());
+        snapshot = new Snapshot(version, body, etagOf(body));
+        snapshots.put(key, snapshot);
+        return snapshot;
+    }
+
+    private byte[] serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize stall listing", e);
+        }
+    }
+
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -73,6 +73,8 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(messageConverter());
+        // Keep publishing off the connection used by listeners so confirms never wait behind deliveries
+        template.setUsePublisherConnection(true);
         return template;
     }
 }
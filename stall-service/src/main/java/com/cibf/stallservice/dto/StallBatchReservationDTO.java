@@ -0,0 +1,25 @@
+package com.cibf.stallservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StallBatchReservationDTO {
+    @NotEmpty(message = "At least one stall ID is required")
+    private List<@NotNull(message = "Stall ID must not be null") Long> stallIds;
+
+    // Defaults to the caller; only employees may reserve on behalf of someone else
+    private Long userId;
+
+    @NotNull(message = "Reservation ID is required")
+    private Long reservationId;
+}
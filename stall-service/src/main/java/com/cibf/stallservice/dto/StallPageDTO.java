@@ -0,0 +1,18 @@
+package com.cibf.stallservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StallPageDTO {
+    private List<StallResponseDTO> items;
+    // Pass back as cursor to fetch the next page; null on the last page
+    private Long nextCursor;
+}
@@ -0,0 +1,19 @@
+package com.cibf.stallservice.dto;
+
+import com.cibf.stallservice.model.StallModel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StallStatusDeltaDTO {
+    private Long stallId;
+    // null when the stall has been deleted
+    private StallModel.StallStatus status;
+    private Long reservedBy;
+    private long version;
+}
@@ -0,0 +1,317 @@
+package com.cibf.stallservice.engine;
+
+import com.cibf.stallservice.model.StallModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resident copy of the floor plan. Stall status and owner are kept in arrays indexed by
+ * stall id and every reserve/release decision is a compare-and-set on those slots, so
+ * reservations are decided without a database round trip. The database is written
+ * after the decision and {@link #track(StallModel)} brings a slot back in line with it.
+ *
+ * The read lock is only contended while the arrays are being grown or an admin change
+ * is applied; reservation decisions never wait on each other.
+ */
+@Component
+@Slf4j
+public class FloorPlanEngine {
+
+    private static final int ABSENT = -1;
+    private static final long NO_USER = Long.MIN_VALUE;
+    private static final StallModel.StallStatus[] STATUSES = StallModel.StallStatus.values();
+    private static final int AVAILABLE = StallModel.StallStatus.AVAILABLE.ordinal();
+    private static final int RESERVED = StallModel.StallStatus.RESERVED.ordinal();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ConcurrentHashMap<Long, AtomicInteger> userCounts = new ConcurrentHashMap<>();
+
+    private volatile AtomicIntegerArray statuses;
+    private volatile AtomicLongArray reservedBy;
+    private volatile AtomicReferenceArray<String> stallNames;
+    private volatile boolean loaded;
+
+    public FloorPlanEngine(@Value("${stall.engine.initial-capacity:1024}") int initialCapacity) {
+        allocate(Math.max(initialCapacity, 16), false);
+    }
+
+    public enum ReserveOutcome {
+        RESERVED,
+        NOT_AVAILABLE,
+        LIMIT_REACHED,
+        UNKNOWN_STALL
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void load(Collection<StallModel> stalls) {
+        lock.writeLock().lock();
+        try {
+            long maxId = stalls.stream().mapToLong(StallModel::getId).max().orElse(0);
+            allocate((int) Math.max(statuses.length(), maxId + 1), false);
+            userCounts.clear();
+            stalls.forEach(this::writeSlot);
+            loaded = true;
+            log.info("Floor plan engine loaded with {} stalls", stalls.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void track(StallModel stall) {
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(stall.getId());
+            clearSlot(stall.getId().intValue());
+            writeSlot(stall);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void untrack(Long stallId) {
+        lock.writeLock().lock();
+        try {
+            if (inRange(stallId)) {
+                clearSlot(stallId.intValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ReserveOutcome tryReserve(Long stallId, Long userId, int maxStallsPerUser) {
+        lock.readLock().lock();
+        try {
+            if (!inRange(stallId) || statuses.get(stallId.intValue()) == ABSENT) {
+                return ReserveOutcome.UNKNOWN_STALL;
+            }
+            int index = stallId.intValue();
+            if (statuses.get(index) != AVAILABLE) {
+                return ReserveOutcome.NOT_AVAILABLE;
+            }
+
+            AtomicInteger count = userCounts.computeIfAbsent(userId, id -> new AtomicInteger());
+            int current;
+            do {
+                current = count.get();
+                if (current >= maxStallsPerUser) {
+                    return ReserveOutcome.LIMIT_REACHED;
+                }
+            } while (!count.compareAndSet(current, current + 1));
+
+            if (!statuses.compareAndSet(index, AVAILABLE, RESERVED)) {
+                count.decrementAndGet();
+                return ReserveOutcome.NOT_AVAILABLE;
+            }
+            reservedBy.set(index, userId);
+            return ReserveOutcome.RESERVED;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ReserveOutcome tryReserveAll(List<Long> stallIds, Long userId, int maxStallsPerUser) {
+        lock.readLock().lock();
+        try {
+            for (Long stallId : stallIds) {
+                if (!inRange(stallId) || statuses.get(stallId.intValue()) == ABSENT) {
+                    return ReserveOutcome.UNKNOWN_STALL;
+                }
+                if (statuses.get(stallId.intValue()) != AVAILABLE) {
+                    return ReserveOutcome.NOT_AVAILABLE;
+                }
+            }
+
+            int requested = stallIds.size();
+            AtomicInteger count = userCounts.computeIfAbsent(userId, id -> new AtomicInteger());
+            int current;
+            do {
+                current = count.get();
+                if (current + requested > maxStallsPerUser) {
+                    return ReserveOutcome.LIMIT_REACHED;
+                }
+            } while (!count.compareAndSet(current, current + requested));
+
+            List<Integer> claimed = new ArrayList<>(requested);
+            for (Long stallId : stallIds) {
+                int index = stallId.intValue();
+                if (!statuses.compareAndSet(index, AVAILABLE, RESERVED)) {
+                    // A concurrent release may already have handed back a claimed stall and
+                    // decremented the count for it, so only undo the claims still held
+                    int undone = 0;
+                    for (int claimedIndex : claimed) {
+                        if (reservedBy.compareAndSet(claimedIndex, userId, NO_USER)) {
+                            statuses.set(claimedIndex, AVAILABLE);
+                            undone++;
+                        }
+                    }
+                    count.addAndGet(-(requested - claimed.size() + undone));
+                    return ReserveOutcome.NOT_AVAILABLE;
+                }
+                reservedBy.set(index, userId);
+                claimed.add(index);
+            }
+            return ReserveOutcome.RESERVED;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void undoReserve(Long stallId, Long userId) {
+        lock.readLock().lock();
+        try {
+            int index = stallId.intValue();
+            if (inRange(stallId) && reservedBy.compareAndSet(index, userId, NO_USER)) {
+                statuses.set(index, AVAILABLE);
+                decrement(userId);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the user that held the stall, or {@code null} if the stall was not reserved
+     */
+    public Long tryRelease(Long stallId) {
+        return tryRelease(stallId, null);
+    }
+
+    /**
+     * Releases the stall only while it is held by {@code expectedUserId}; {@code null} accepts any holder.
+     *
+     * @return the user that held the stall, or {@code null} if it was not reserved by the expected user
+     */
+    public Long tryRelease(Long stallId, Long expectedUserId) {
+        lock.readLock().lock();
+        try {
+            if (!inRange(stallId)) {
+                return null;
+            }
+            int index = stallId.intValue();
+            long previousUser = reservedBy.get(index);
+            if (previousUser == NO_USER || statuses.get(index) != RESERVED
+                    || (expectedUserId != null && previousUser != expectedUserId)
+                    || !reservedBy.compareAndSet(index, previousUser, NO_USER)) {
+                return null;
+            }
+            statuses.set(index, AVAILABLE);
+            decrement(previousUser);
+            return previousUser;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void undoRelease(Long stallId, Long userId) {
+        lock.readLock().lock();
+        try {
+            int index = stallId.intValue();
+            if (inRange(stallId) && statuses.compareAndSet(index, AVAILABLE, RESERVED)) {
+                reservedBy.set(index, userId);
+                userCounts.computeIfAbsent(userId, id -> new AtomicInteger()).incrementAndGet();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public StallModel.StallStatus statusOf(Long stallId) {
+        if (!inRange(stallId)) {
+            return null;
+        }
+        int status = statuses.get(stallId.intValue());
+        return status == ABSENT ? null : STATUSES[status];
+    }
+
+    /**
+     * @return the user holding the stall, or {@code null} if it is not reserved
+     */
+    public Long reservedByOf(Long stallId) {
+        if (!inRange(stallId)) {
+            return null;
+        }
+        long userId = reservedBy.get(stallId.intValue());
+        return userId == NO_USER ? null : userId;
+    }
+
+    public String stallNameOf(Long stallId) {
+        return inRange(stallId) ? stallNames.get(stallId.intValue()) : null;
+    }
+
+    public int reservedCount(Long userId) {
+        AtomicInteger count = userCounts.get(userId);
+        return count == null ? 0 : count.get();
+    }
+
+    // The arrays only grow and are swapped together under the write lock, so one length check covers all three
+    private boolean inRange(Long stallId) {
+        return stallId >= 0 && stallId < statuses.length();
+    }
+
+    private void writeSlot(StallModel stall) {
+        int index = stall.getId().intValue();
+        statuses.set(index, stall.getStatus().ordinal());
+        stallNames.set(index, stall.getStallName());
+        if (stall.getStatus() == StallModel.StallStatus.RESERVED && stall.getReservedBy() != null) {
+            reservedBy.set(index, stall.getReservedBy());
+            userCounts.computeIfAbsent(stall.getReservedBy(), id -> new AtomicInteger()).incrementAndGet();
+        } else {
+            reservedBy.set(index, NO_USER);
+        }
+    }
+
+    private void clearSlot(int index) {
+        long previousUser = reservedBy.get(index);
+        if (previousUser != NO_USER && statuses.get(index) == RESERVED) {
+            decrement(previousUser);
+        }
+        statuses.set(index, ABSENT);
+        reservedBy.set(index, NO_USER);
+        stallNames.set(index, null);
+    }
+
+    private void decrement(long userId) {
+        AtomicInteger count = userCounts.get(userId);
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    private void ensureCapacity(Long stallId) {
+        if (stallId >= statuses.length()) {
+            allocate((int) Math.max(stallId + 1, statuses.length() * 2L), true);
+        }
+    }
+
+    private void allocate(int capacity, boolean keepExisting) {
+        AtomicIntegerArray newStatuses = new AtomicIntegerArray(capacity);
+        AtomicLongArray newReservedBy = new AtomicLongArray(capacity);
+        AtomicReferenceArray<String> newNames = new AtomicReferenceArray<>(capacity);
+        int copied = keepExisting ? statuses.length() : 0;
+        for (int i = 0; i < capacity; i++) {
+            newStatuses.set(i, i < copied ? statuses.get(i) : ABSENT);
+            newReservedBy.set(i, i < copied ? reservedBy.get(i) : NO_USER);
+            if (i < copied) {
+                newNames.set(i, stallNames.get(i));
+            }
+        }
+        statuses = newStatuses;
+        reservedBy = newReservedBy;
+        stallNames = newNames;
+    }
+}
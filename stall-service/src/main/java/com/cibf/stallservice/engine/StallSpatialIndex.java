@@ -0,0 +1,224 @@
+package com.cibf.stallservice.engine;
+
+import com.cibf.stallservice.dto.StallResponseDTO;
+import com.cibf.stallservice.model.StallModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Uniform grid over stall positions. Each cell holds the ids of the stalls whose position
+ * falls inside it, so a viewport only visits the cells it overlaps instead of the whole hall.
+ * Writers are serialized; queries run lock-free against the concurrent maps.
+ */
+@Component
+public class StallSpatialIndex {
+
+    private final int cellSize;
+    private final Map<Long, StallResponseDTO> stalls = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+    private volatile int minCellX;
+    private volatile int maxCellX;
+    private volatile int minCellY;
+    private volatile int maxCellY;
+
+    public StallSpatialIndex(@Value("${stall.spatial.cell-size:4}") int cellSize) {
+        this.cellSize = Math.max(cellSize, 1);
+        load(List.of());
+    }
+
+    public synchronized void load(Collection<StallResponseDTO> allStalls) {
+        stalls.clear();
+        cells.clear();
+        minCellX = minCellY = Integer.MAX_VALUE;
+        maxCellX = maxCellY = Integer.MIN_VALUE;
+        allStalls.forEach(this::insert);
+    }
+
+    public synchronized void put(StallResponseDTO stall) {
+        StallResponseDTO previous = stalls.get(stall.getId());
+        if (previous != null && !samePosition(previous, stall)) {
+            removeFromCell(previous);
+        }
+        insert(stall);
+    }
+
+    public synchronized void remove(Long stallId) {
+        StallResponseDTO previous = stalls.remove(stallId);
+        if (previous != null) {
+            removeFromCell(previous);
+        }
+    }
+
+    public List<StallResponseDTO> findInArea(int minX, int maxX, int minY, int maxY,
+                                             StallModel.StallSize size, StallModel.StallStatus status) {
+        List<StallResponseDTO> result = new ArrayList<>();
+        int fromCellX = Math.max(cellOf(minX), minCellX);
+        int toCellX = Math.min(cellOf(maxX), maxCellX);
+        int fromCellY = Math.max(cellOf(minY), minCellY);
+        int toCellY = Math.min(cellOf(maxY), maxCellY);
+
+        for (int cx = fromCellX; cx <= toCellX; cx++) {
+            for (int cy = fromCellY; cy <= toCellY; cy++) {
+                Set<Long> ids = cells.get(cellKey(cx, cy));
+                if (ids == null) {
+                    continue;
+                }
+                for (Long id : ids) {
+                    StallResponseDTO stall = stalls.get(id);
+                    if (stall != null && matches(stall, size, status)
+                            && stall.getPositionX() >= minX && stall.getPositionX() <= maxX
+                            && stall.getPositionY() >= minY && stall.getPositionY() <= maxY) {
+                        result.add(stall);
+                    }
+                }
+            }
+        }
+        result.sort(Comparator.comparing(StallResponseDTO::getStallName));
+        return result;
+    }
+
+    /**
+     * Rings of cells are visited outwards from the occupied cell closest to the query point,
+     * walking only each ring's edges. The search stops once no unvisited cell can hold anything
+     * closer than the current limit-th candidate, or once the rings cover every occupied cell,
+     * so a point far outside the hall costs no more than a scan of the hall itself.
+     */
+    public List<StallResponseDTO> findNearest(int x, int y, int limit,
+                                              StallModel.StallSize size, StallModel.StallStatus status) {
+        List<StallResponseDTO> candidates = new ArrayList<>();
+        int fromCellX = minCellX;
+        int toCellX = maxCellX;
+        int fromCellY = minCellY;
+        int toCellY = maxCellY;
+        if (stalls.isEmpty() || limit <= 0 || fromCellX > toCellX || fromCellY > toCellY) {
+            return candidates;
+        }
+        Comparator<StallResponseDTO> byDistance = Comparator
+                .comparingLong((StallResponseDTO stall) -> squaredDistance(stall, x, y))
+                .thenComparing(StallResponseDTO::getStallName);
+
+        int centerX = Math.min(Math.max(cellOf(x), fromCellX), toCellX);
+        int centerY = Math.min(Math.max(cellOf(y), fromCellY), toCellY);
+        int maxRing = Math.max(
+                Math.max(centerX - fromCellX, toCellX - centerX),
+                Math.max(centerY - fromCellY, toCellY - centerY));
+        // Distance from the query point to the occupied cells along each axis, 0 when inside
+        long gapX = gap(x, fromCellX, toCellX);
+        long gapY = gap(y, fromCellY, toCellY);
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int left = centerX - ring;
+            int right = centerX + ring;
+            int top = centerY - ring;
+            int bottom = centerY + ring;
+            for (int cx = Math.max(left, fromCellX); cx <= Math.min(right, toCellX); cx++) {
+                if (top >= fromCellY) {
+                    collect(cx, top, size, status, candidates);
+                }
+                if (bottom != top && bottom <= toCellY) {
+                    collect(cx, bottom, size, status, candidates);
+                }
+            }
+            for (int cy = Math.max(top + 1, fromCellY); cy <= Math.min(bottom - 1, toCellY); cy++) {
+                if (left >= fromCellX) {
+                    collect(left, cy, size, status, candidates);
+                }
+                if (right <= toCellX) {
+                    collect(right, cy, size, status, candidates);
+                }
+            }
+
+            if (candidates.size() >= limit) {
+                candidates.sort(byDistance);
+                // Any cell beyond this ring is at least one full ring further out along some axis
+                long reach = (long) ring * cellSize;
+                long unvisited = Math.min(
+                        (gapX + reach) * (gapX + reach) + gapY * gapY,
+                        gapX * gapX + (gapY + reach) * (gapY + reach));
+                if (squaredDistance(candidates.get(limit - 1), x, y) <= unvisited) {
+                    break;
+                }
+            }
+        }
+        candidates.sort(byDistance);
+        return candidates.size() > limit ? new ArrayList<>(candidates.subList(0, limit)) : candidates;
+    }
+
+    public StallResponseDTO get(Long stallId) {
+        return stalls.get(stallId);
+    }
+
+    private void collect(int cx, int cy, StallModel.StallSize size, StallModel.StallStatus status,
+                         List<StallResponseDTO> candidates) {
+        Set<Long> ids = cells.get(cellKey(cx, cy));
+        if (ids == null) {
+            return;
+        }
+        for (Long id : ids) {
+            StallResponseDTO stall = stalls.get(id);
+            if (stall != null && matches(stall, size, status)) {
+                candidates.add(stall);
+            }
+        }
+    }
+
+    private long gap(int coordinate, int fromCell, int toCell) {
+        long low = (long) fromCell * cellSize;
+        long high = (long) (toCell + 1) * cellSize - 1;
+        return coordinate < low ? low - coordinate : coordinate > high ? coordinate - high : 0;
+    }
+
+    private void insert(StallResponseDTO stall) {
+        int cx = cellOf(stall.getPositionX());
+        int cy = cellOf(stall.getPositionY());
+        stalls.put(stall.getId(), stall);
+        cells.computeIfAbsent(cellKey(cx, cy), key -> ConcurrentHashMap.newKeySet()).add(stall.getId());
+        minCellX = Math.min(minCellX, cx);
+        maxCellX = Math.max(maxCellX, cx);
+        minCellY = Math.min(minCellY, cy);
+        maxCellY = Math.max(maxCellY, cy);
+    }
+
+    private void removeFromCell(StallResponseDTO stall) {
+        long key = cellKey(cellOf(stall.getPositionX()), cellOf(stall.getPositionY()));
+        Set<Long> ids = cells.get(key);
+        if (ids != null) {
+            ids.remove(stall.getId());
+            if (ids.isEmpty()) {
+                cells.remove(key);
+            }
+        }
+    }
+
+    private static boolean matches(StallResponseDTO stall, StallModel.StallSize size,
+                                   StallModel.StallStatus status) {
+        return (size == null || stall.getSize() == size) && (status == null || stall.getStatus() == status);
+    }
+
+    private static boolean samePosition(StallResponseDTO a, StallResponseDTO b) {
+        return a.getPositionX().equals(b.getPositionX()) && a.getPositionY().equals(b.getPositionY());
+    }
+
+    private static long squaredDistance(StallResponseDTO stall, int x, int y) {
+        long dx = (long) stall.getPositionX() - x;
+        long dy = (long) stall.getPositionY() - y;
+        return dx * dx + dy * dy;
+    }
+
+    private int cellOf(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static long cellKey(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+}
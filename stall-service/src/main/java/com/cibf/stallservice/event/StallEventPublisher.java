@@ -1,18 +1,26 @@
 package com.cibf.stallservice.event;
 
+import com.cibf.stallservice.model.StallOutboxEvent;
+import com.cibf.stallservice.repository.StallOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Records stall events in the outbox as part of the caller's transaction; {@link StallOutboxRelay}
+ * publishes them once committed.
+ */
 @Service
 @Slf4j
+@Transactional(propagation = Propagation.MANDATORY)
 public class StallEventPublisher {
 
-    private final RabbitTemplate rabbitTemplate;
-
-    @Value("${rabbitmq.exchange.stall:stall.exchange}")
-    private String stallExchange;
+    private final StallOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
 
     @Value("${rabbitmq.routing-key.stall-reserved:stall.reserved}")
     private String stallReservedRoutingKey;
@@ -20,27 +28,32 @@ public class StallEventPublisher {
     @Value("${rabbitmq.routing-key.stall-released:stall.released}")
     private String stallReleasedRoutingKey;
 
-    public StallEventPublisher(RabbitTemplate rabbitTemplate) {
-        this.rabbitTemplate = rabbitTemplate;
+    public StallEventPublisher(StallOutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
     }
 
     public void publishStallReservedEvent(StallReservedEvent event) {
-        try {
-            log.info("Publishing stall reserved event for stall: {}", event.getStallId());
-            rabbitTemplate.convertAndSend(stallExchange, stallReservedRoutingKey, event);
-            log.info("Stall reserved event published successfully");
-        } catch (Exception e) {
-            log.error("Error publishing stall reserved event: {}", e.getMessage(), e);
-        }
+        log.info("Recording stall reserved event for stall: {}", event.getStallId());
+        enqueue(event.getStallId(), stallReservedRoutingKey, event);
     }
 
     public void publishStallReleasedEvent(StallReleasedEvent event) {
+        log.info("Recording stall released event for stall: {}", event.getStallId());
+        enqueue(event.getStallId(), stallReleasedRoutingKey, event);
+    }
+
+    // The stall id keys the row, so the relay keeps each stall's events in order
+    private void enqueue(Long aggregateId, String routingKey, Object event) {
+        StallOutboxEvent outboxEvent = new StallOutboxEvent();
+        outboxEvent.setAggregateId(aggregateId);
+        outboxEvent.setRoutingKey(routingKey);
+        outboxEvent.setEventType(event.getClass().getName());
         try {
-            log.info("Publishing stall released event for stall: {}", event.getStallId());
-            rabbitTemplate.convertAndSend(stallExchange, stallReleasedRoutingKey, event);
-            log.info("Stall released event published successfully");
-        } catch (Exception e) {
-            log.error("Error publishing stall released event: {}", e.getMessage(), e);
+            outboxEvent.setPayload(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + event.getClass().getSimpleName(), e);
         }
+        outboxRepository.save(outboxEvent);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,227 @@
+package com.cibf.stallservice.event;
+
+import com.cibf.stallservice.model.StallOutboxDeadLetter;
+import com.cibf.stallservice.model.StallOutboxEvent;
+import com.cibf.stallservice.repository.StallOutboxDeadLetterRepository;
+import com.cibf.stallservice.repository.StallOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Drains the stall outbox to RabbitMQ. Each run claims up to {@code stall.outbox.batch-size}
+ * events, at most one per stall, in a short transaction and then lets the connection go; the
+ * batch is sent in id order on one channel of the publisher connection and its rows are
+ * deleted only once the broker has confirmed every message. A stall's next event is not
+ * eligible until the one before it is gone, so per-stall order holds across relay instances.
+ * A NACKed or timed out batch is retried with backoff and released for the next run if it
+ * keeps failing; a claim left behind by a crashed relay expires after
+ * {@code stall.outbox.claim-lease-ms}. Rows that cannot be deserialized are moved to the
+ * dead-letter table instead of blocking the outbox.
+ */
+@Component
+@Slf4j
+public class StallOutboxRelay {
+
+    private final StallOutboxRepository outboxRepository;
+    private final StallOutboxDeadLetterRepository deadLetterRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final DistributionSummary batchSizes;
+    private final Timer confirmLatency;
+    private final Counter publishedEvents;
+    private final Counter failedBatches;
+    private final Counter deadLetteredEvents;
+
+    @Value("${rabbitmq.exchange.stall:stall.exchange}")
+    private String stallExchange;
+
+    @Value("${stall.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${stall.outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${stall.outbox.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${stall.outbox.retry-backoff-ms:200}")
+    private long retryBackoffMs;
+
+    @Value("${stall.outbox.claim-lease-ms:60000}")
+    private long claimLeaseMs;
+
+    public StallOutboxRelay(StallOutboxRepository outboxRepository,
+                            StallOutboxDeadLetterRepository deadLetterRepository, RabbitTemplate rabbitTemplate,
+                            ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("stall.outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Stall events waiting in the outbox after the last relay run")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("stall.outbox.batch.size")
+                .description("Stall events sent per confirmed batch")
+                .register(meterRegistry);
+        this.confirmLatency = Timer.builder("stall.outbox.confirm.latency")
+                .description("Time from sending a batch to the broker confirming all of it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.publishedEvents = Counter.builder("stall.outbox.published")
+                .description("Stall events confirmed by the broker")
+                .register(meterRegistry);
+        this.failedBatches = Counter.builder("stall.outbox.batch.failures")
+                .description("Batch attempts that were NACKed, timed out or failed to send")
+                .register(meterRegistry);
+        this.deadLetteredEvents = Counter.builder("stall.outbox.dead.lettered")
+                .description("Outbox rows moved to the dead-letter table because they could not be read")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${stall.outbox.poll-interval-ms:500}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayNextBatch();
+        } while (relayed > 0);
+        pendingEvents.set(outboxRepository.count());
+    }
+
+    // Returns the number of rows taken off the outbox, or -1 if the batch is left for the next run
+    private int relayNextBatch() {
+        List<StallOutboxEvent> batch = transactionTemplate.execute(status -> claimNextBatch());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<StallOutboxEvent> readable = new ArrayList<>(batch.size());
+        List<Object> events = new ArrayList<>(batch.size());
+        List<StallOutboxDeadLetter> deadLetters = new ArrayList<>();
+        for (StallOutboxEvent outboxEvent : batch) {
+            try {
+                events.add(readEvent(outboxEvent));
+                readable.add(outboxEvent);
+            } catch (IllegalStateException e) {
+                log.error("{}, moving it to the dead-letter table", e.getMessage(), e);
+                deadLetters.add(deadLetterOf(outboxEvent, e));
+            }
+        }
+        if (!deadLetters.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                deadLetterRepository.saveAll(deadLetters);
+                outboxRepository.deleteAllByIdInBatch(idsOf(deadLetters.stream().map(StallOutboxDeadLetter::getId)));
+            });
+            deadLetteredEvents.increment(deadLetters.size());
+        }
+        if (readable.isEmpty()) {
+            return deadLetters.size();
+        }
+
+        List<Long> ids = idsOf(readable.stream().map(StallOutboxEvent::getId));
+        if (!sendWithRetry(readable, events)) {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.releaseClaims(ids));
+            log.error("Stall outbox batch still failing after {} attempts, will retry on the next run", maxAttempts);
+            return -1;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteAllByIdInBatch(ids));
+        batchSizes.record(readable.size());
+        publishedEvents.increment(readable.size());
+        log.info("Relayed {} stall events", readable.size());
+        return batch.size();
+    }
+
+    private List<StallOutboxEvent> claimNextBatch() {
+        List<StallOutboxEvent> batch = outboxRepository.lockNextBatch(batchSize);
+        if (!batch.isEmpty()) {
+            outboxRepository.claim(idsOf(batch.stream().map(StallOutboxEvent::getId)), claimLeaseMs);
+        }
+        return batch;
+    }
+
+    // Sends and waits for confirms without holding a database connection
+    private boolean sendWithRetry(List<StallOutboxEvent> batch, List<Object> events) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                send(batch, events);
+                return true;
+            } catch (Exception e) {
+                failedBatches.increment();
+                log.warn("Stall outbox batch attempt {}/{} failed: {}", attempt, maxAttempts, e.getMessage());
+                if (attempt < maxAttempts && !backOff(attempt)) {
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void send(List<StallOutboxEvent> batch, List<Object> events) {
+        Timer.Sample sample = Timer.start();
+        rabbitTemplate.invoke(operations -> {
+            for (int i = 0; i < batch.size(); i++) {
+                String messageId = String.valueOf(batch.get(i).getId());
+                operations.convertAndSend(stallExchange, batch.get(i).getRoutingKey(), events.get(i), message -> {
+                    message.getMessageProperties().setMessageId(messageId);
+                    return message;
+                });
+            }
+            operations.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+        sample.stop(confirmLatency);
+    }
+
+    private static List<Long> idsOf(Stream<Long> ids) {
+        return ids.collect(Collectors.toList());
+    }
+
+    private static StallOutboxDeadLetter deadLetterOf(StallOutboxEvent outboxEvent, Exception error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        return new StallOutboxDeadLetter(outboxEvent.getId(), outboxEvent.getAggregateId(),
+                outboxEvent.getRoutingKey(), outboxEvent.getEventType(), outboxEvent.getPayload(),
+                cause.toString(), outboxEvent.getCreatedAt(), LocalDateTime.now());
+    }
+
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs * (1L << (attempt - 1)));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Object readEvent(StallOutboxEvent outboxEvent) {
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), Class.forName(outboxEvent.getEventType()));
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable outbox event " + outboxEvent.getId(), e);
+        }
+    }
+}
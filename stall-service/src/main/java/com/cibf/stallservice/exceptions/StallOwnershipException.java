@@ -0,0 +1,7 @@
+package com.cibf.stallservice.exceptions;
+
+public class StallOwnershipException extends RuntimeException {
+    public StallOwnershipException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,228 @@
+package com.cibf.stallservice.stream;
+
+import com.cibf.stallservice.dto.StallStatusDeltaDTO;
+import com.cibf.stallservice.model.StallModel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes per-stall status deltas to Server-Sent Events subscribers. Emitters are parked on
+ * the servlet container's async support, so idle subscribers hold no request thread. One
+ * dispatcher thread assigns versions, keeps the replay buffer and fans every event out to the
+ * subscribers' own bounded queues, which keeps versions and delivery in the same order; it never
+ * writes to a connection itself. Each queue is drained by a sender thread taken only while
+ * there is something to write, so a slow or stalled client holds up nobody but itself, and a
+ * client whose queue fills up is disconnected and left to resume from its last event id.
+ */
+@Component
+@Slf4j
+public class StallDeltaBroadcaster {
+
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stall-delta-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // All emitter calls happen here, so a blocked write can only hold up its own subscriber
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "stall-delta-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only touched from the dispatcher thread
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final Deque<StallStatusDeltaDTO> replayBuffer = new ArrayDeque<>();
+    private long version;
+
+    private final int replaySize;
+    private final int subscriberQueueSize;
+    private final long emitterTimeoutMs;
+
+    public StallDeltaBroadcaster(@Value("${stall.stream.replay-size:1024}") int replaySize,
+                                 @Value("${stall.stream.subscriber-queue-size:256}") int subscriberQueueSize,
+                                 @Value("${stall.stream.timeout-ms:1800000}") long emitterTimeoutMs,
+                                 @Value("${stall.stream.heartbeat-seconds:15}") long heartbeatSeconds) {
+        this.replaySize = replaySize;
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        dispatcher.scheduleAtFixedRate(this::sendHeartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param sinceVersion last version the client has seen, or {@code null} for live deltas only
+     */
+    public SseEmitter subscribe(Long sinceVersion) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> {
+            subscriber.closed = true;
+            dispatcher.execute(() -> subscribers.remove(subscriber));
+        });
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> emitter.complete());
+
+        dispatcher.execute(() -> {
+            if (sinceVersion != null && !replay(subscriber, sinceVersion)) {
+                return;
+            }
+            subscribers.add(subscriber);
+        });
+        return emitter;
+    }
+
+    public void publish(StallModel stall) {
+        publish(stall.getId(), stall.getStatus(), stall.getReservedBy());
+    }
+
+    public void publishRemoved(Long stallId) {
+        publish(stallId, null, null);
+    }
+
+    // Deferred to commit when called inside a transaction so subscribers never see rolled back state
+    private void publish(Long stallId, StallModel.StallStatus status, Long reservedBy) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.execute(() -> broadcast(stallId, status, reservedBy));
+                }
+            });
+        } else {
+            dispatcher.execute(() -> broadcast(stallId, status, reservedBy));
+        }
+    }
+
+    private void broadcast(Long stallId, StallModel.StallStatus status, Long reservedBy) {
+        StallStatusDeltaDTO delta = StallStatusDeltaDTO.builder()
+                .stallId(stallId)
+                .status(status)
+                .reservedBy(reservedBy)
+                .version(++version)
+                .build();
+        replayBuffer.addLast(delta);
+        if (replayBuffer.size() > replaySize) {
+            replayBuffer.removeFirst();
+        }
+        subscribers.removeIf(subscriber -> !subscriber.offer(deltaEvent(delta)));
+    }
+
+    private boolean replay(Subscriber subscriber, long sinceVersion) {
+        StallStatusDeltaDTO oldest = replayBuffer.peekFirst();
+        boolean gap = sinceVersion > version || (oldest != null && oldest.getVersion() > sinceVersion + 1)
+                || (oldest == null && sinceVersion < version);
+        // Too far behind (or from before a restart), or more to catch up on than the subscriber
+        // may queue: the client has to reload the full listing
+        if (gap || version - sinceVersion > subscriberQueueSize) {
+            return subscriber.offer(SseEmitter.event().name("reset").data(version));
+        }
+        for (StallStatusDeltaDTO delta : replayBuffer) {
+            if (delta.getVersion() > sinceVersion && !subscriber.offer(deltaEvent(delta))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void sendHeartbeat() {
+        subscribers.removeIf(subscriber -> !subscriber.offer(SseEmitter.event().comment("keep-alive")));
+    }
+
+    private static SseEmitter.SseEventBuilder deltaEvent(StallStatusDeltaDTO delta) {
+        return SseEmitter.event()
+                .id(String.valueOf(delta.getVersion()))
+                .name("stall")
+                .data(delta, MediaType.APPLICATION_JSON);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+        senders.shutdown();
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(subscriberQueueSize);
+        }
+
+        // Called from the dispatcher; never blocks, a full queue means the client fell behind
+        private boolean offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return false;
+            }
+            if (!pending.offer(event)) {
+                log.debug("Dropping stall stream subscriber that fell {} events behind", subscriberQueueSize);
+                close();
+                return false;
+            }
+            scheduleDrain();
+            return true;
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = pending.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        log.debug("Dropping stall stream subscriber: {}", e.getMessage());
+                        closed = true;
+                        pending.clear();
+                        emitter.completeWithError(e);
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+            // An event offered after the last poll but before the flag was cleared
+            if (!closed && !pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        // Completion goes through a sender as well, since it waits for a write in progress
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.clear();
+            senders.execute(emitter::complete);
+        }
+    }
+}
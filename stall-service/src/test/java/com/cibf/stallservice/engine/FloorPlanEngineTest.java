@@ -0,0 +1,170 @@
+package com.cibf.stallservice.engine;
+
+import com.cibf.stallservice.model.StallModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FloorPlanEngineTest {
+
+    private static final int LIMIT = 3;
+    private static final int STALLS = 8;
+
+    private FloorPlanEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new FloorPlanEngine(16);
+        engine.load(LongStream.rangeClosed(1, STALLS).mapToObj(FloorPlanEngineTest::availableStall).toList());
+    }
+
+    @Test
+    void stopsAUserAtTheLimitUntilOneIsReleased() {
+        assertThat(engine.tryReserve(1L, 7L, LIMIT)).isEqualTo(FloorPlanEngine.ReserveOutcome.RESERVED);
+        assertThat(engine.tryReserve(2L, 7L, LIMIT)).isEqualTo(FloorPlanEngine.ReserveOutcome.RESERVED);
+        assertThat(engine.tryReserve(3L, 7L, LIMIT)).isEqualTo(FloorPlanEngine.ReserveOutcome.RESERVED);
+        assertThat(engine.tryReserve(4L, 7L, LIMIT)).isEqualTo(FloorPlanEngine.ReserveOutcome.LIMIT_REACHED);
+        assertThat(engine.tryReserveAll(List.of(4L), 7L, LIMIT)).isEqualTo(FloorPlanEngine.ReserveOutcome.LIMIT_REACHED);
+        assertThat(engine.statusOf(4L)).isEqualTo(StallModel.StallStatus.AVAILABLE);
+
+        assertThat(engine.tryRelease(2L)).isEqualTo(7L);
+        assertThat(engine.reservedCount(7L)).isEqualTo(2);
+        assertThat(engine.tryReserve(4L, 7L, LIMIT)).isEqualTo(FloorPlanEngine.ReserveOutcome.RESERVED);
+        assertThat(engine.reservedCount(7L)).isEqualTo(LIMIT);
+    }
+
+    @Test
+    void batchThatHitsATakenStallLeavesNothingClaimed() {
+        engine.tryReserve(3L, 9L, LIMIT);
+
+        assertThat(engine.tryReserveAll(List.of(1L, 2L, 3L), 7L, LIMIT))
+                .isEqualTo(FloorPlanEngine.ReserveOutcome.NOT_AVAILABLE);
+        assertThat(engine.statusOf(1L)).isEqualTo(StallModel.StallStatus.AVAILABLE);
+        assertThat(engine.statusOf(2L)).isEqualTo(StallModel.StallStatus.AVAILABLE);
+        assertThat(engine.reservedCount(7L)).isZero();
+    }
+
+    @Test
+    void releaseOnlyMatchesTheExpectedHolder() {
+        engine.tryReserve(1L, 7L, LIMIT);
+
+        assertThat(engine.tryRelease(1L, 9L)).isNull();
+        assertThat(engine.reservedByOf(1L)).isEqualTo(7L);
+        assertThat(engine.tryRelease(1L, 7L)).isEqualTo(7L);
+        assertThat(engine.reservedByOf(1L)).isNull();
+    }
+
+    @Test
+    void treatsIdsOutsideTheFloorPlanAsUnknown() {
+        assertThat(engine.tryReserve(-1L, 7L, LIMIT)).isEqualTo(FloorPlanEngine.ReserveOutcome.UNKNOWN_STALL);
+        assertThat(engine.tryReserveAll(List.of(1L, -2L), 7L, LIMIT))
+                .isEqualTo(FloorPlanEngine.ReserveOutcome.UNKNOWN_STALL);
+        assertThat(engine.tryReserve(10_000L, 7L, LIMIT)).isEqualTo(FloorPlanEngine.ReserveOutcome.UNKNOWN_STALL);
+        assertThat(engine.tryRelease(-1L)).isNull();
+        assertThat(engine.statusOf(-1L)).isNull();
+        assertThat(engine.stallNameOf(-1L)).isNull();
+        assertThat(engine.reservedByOf(-1L)).isNull();
+        engine.undoReserve(-1L, 7L);
+        engine.undoRelease(-1L, 7L);
+        engine.untrack(-1L);
+        assertThat(engine.reservedCount(7L)).isZero();
+    }
+
+    @Test
+    void onlyOneConcurrentReservationWinsAStall() throws Exception {
+        AtomicInteger winners = new AtomicInteger();
+        runConcurrently(32, user -> {
+            if (engine.tryReserve(1L, (long) user, LIMIT) == FloorPlanEngine.ReserveOutcome.RESERVED) {
+                winners.incrementAndGet();
+            }
+        });
+
+        assertThat(winners.get()).isEqualTo(1);
+        assertThat(engine.statusOf(1L)).isEqualTo(StallModel.StallStatus.RESERVED);
+    }
+
+    @Test
+    void concurrentReservationsNeverExceedTheLimit() throws Exception {
+        runConcurrently(STALLS, thread -> engine.tryReserve((long) thread + 1, 7L, LIMIT));
+
+        assertThat(engine.reservedCount(7L)).isEqualTo(LIMIT);
+        assertThat(heldBy(7L)).isEqualTo(LIMIT);
+    }
+
+    @Test
+    void countsStayInLineWithSlotsUnderReserveReleaseChurn() throws Exception {
+        runConcurrently(8, thread -> {
+            long user = thread % 2;
+            for (int i = 0; i < 5_000; i++) {
+                long first = 1 + (i + thread) % STALLS;
+                long second = 1 + (i + thread + 1) % STALLS;
+                switch (i % 3) {
+                    case 0 -> engine.tryReserve(first, user, LIMIT);
+                    case 1 -> engine.tryReserveAll(List.of(first, second), user, LIMIT);
+                    default -> engine.tryRelease(first);
+                }
+            }
+        });
+
+        for (long user = 0; user < 2; user++) {
+            assertThat(engine.reservedCount(user)).isEqualTo(heldBy(user));
+            assertThat(engine.reservedCount(user)).isBetween(0, LIMIT);
+        }
+    }
+
+    private long heldBy(long user) {
+        return LongStream.rangeClosed(1, STALLS)
+                .filter(stallId -> engine.statusOf(stallId) == StallModel.StallStatus.RESERVED)
+                .filter(stallId -> Long.valueOf(user).equals(engine.reservedByOf(stallId)))
+                .count();
+    }
+
+    private static void runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                Callable<Void> call = () -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                };
+                futures.add(executor.submit(call));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static StallModel availableStall(long id) {
+        StallModel stall = new StallModel();
+        stall.setId(id);
+        stall.setStallName("S" + id);
+        stall.setSize(StallModel.StallSize.SMALL);
+        stall.setStatus(StallModel.StallStatus.AVAILABLE);
+        return stall;
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+}
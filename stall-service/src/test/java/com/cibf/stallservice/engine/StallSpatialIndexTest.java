@@ -0,0 +1,170 @@
+package com.cibf.stallservice.engine;
+
+import com.cibf.stallservice.dto.StallResponseDTO;
+import com.cibf.stallservice.model.StallModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StallSpatialIndexTest {
+
+    private static final StallModel.StallSize[] SIZES = StallModel.StallSize.values();
+    private static final StallModel.StallStatus[] STATUSES = StallModel.StallStatus.values();
+
+    private StallSpatialIndex index;
+    private List<StallResponseDTO> stalls;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        stalls = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            // Some stalls sit at negative coordinates and several share a position
+            stalls.add(stall(id, random.nextInt(80) - 20, random.nextInt(60) - 10,
+                    SIZES[random.nextInt(SIZES.length)], STATUSES[random.nextInt(STATUSES.length)]));
+        }
+        index = new StallSpatialIndex(4);
+        index.load(stalls);
+    }
+
+    @Test
+    void viewportMatchesAFullScan() {
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            int minX = random.nextInt(100) - 30;
+            int minY = random.nextInt(80) - 20;
+            int maxX = minX + random.nextInt(30);
+            int maxY = minY + random.nextInt(30);
+            StallModel.StallSize size = random.nextBoolean() ? null : SIZES[random.nextInt(SIZES.length)];
+            StallModel.StallStatus status = random.nextBoolean() ? null : STATUSES[random.nextInt(STATUSES.length)];
+
+            assertThat(index.findInArea(minX, maxX, minY, maxY, size, status))
+                    .as("viewport x %d..%d, y %d..%d", minX, maxX, minY, maxY)
+                    .containsExactlyElementsOf(scanArea(minX, maxX, minY, maxY, size, status));
+        }
+    }
+
+    @Test
+    void viewportIncludesItsEdgesAndSkipsEmptySpace() {
+        StallResponseDTO corner = stalls.get(0);
+        int x = corner.getPositionX();
+        int y = corner.getPositionY();
+
+        assertThat(index.findInArea(x, x, y, y, null, null)).contains(corner);
+        assertThat(index.findInArea(1000, 2000, 1000, 2000, null, null)).isEmpty();
+    }
+
+    @Test
+    void nearestMatchesAFullScan() {
+        Random random = new Random(13);
+        for (int i = 0; i < 200; i++) {
+            // Query points reach well outside the occupied area as well
+            int x = random.nextInt(160) - 60;
+            int y = random.nextInt(140) - 50;
+            int limit = 1 + random.nextInt(12);
+            StallModel.StallSize size = random.nextBoolean() ? null : SIZES[random.nextInt(SIZES.length)];
+            StallModel.StallStatus status = random.nextBoolean() ? null : STATUSES[random.nextInt(STATUSES.length)];
+
+            assertThat(index.findNearest(x, y, limit, size, status))
+                    .as("%d nearest to (%d, %d)", limit, x, y)
+                    .containsExactlyElementsOf(scanNearest(x, y, limit, size, status));
+        }
+    }
+
+    @Test
+    void nearestReturnsEverythingWhenTheLimitExceedsTheMatches() {
+        List<StallResponseDTO> small = scanNearest(0, 0, Integer.MAX_VALUE, StallModel.StallSize.SMALL, null);
+
+        assertThat(index.findNearest(0, 0, stalls.size() + 1, StallModel.StallSize.SMALL, null))
+                .containsExactlyElementsOf(small);
+        assertThat(index.findNearest(0, 0, 0, null, null)).isEmpty();
+        assertThat(new StallSpatialIndex(4).findNearest(0, 0, 5, null, null)).isEmpty();
+    }
+
+    @Test
+    void farAwayPointWithNothingMatchingReturnsQuickly() {
+        StallSpatialIndex hall = new StallSpatialIndex(4);
+        List<StallResponseDTO> reserved = new ArrayList<>();
+        for (long id = 1; id <= 25; id++) {
+            reserved.add(stall(id, (int) (id - 1) % 5 * 4, (int) (id - 1) / 5 * 4,
+                    StallModel.StallSize.SMALL, StallModel.StallStatus.RESERVED));
+        }
+        hall.load(reserved);
+
+        long started = System.nanoTime();
+        assertThat(hall.findNearest(Integer.MAX_VALUE, Integer.MIN_VALUE, 5, null, StallModel.StallStatus.AVAILABLE))
+                .isEmpty();
+        assertThat(hall.findNearest(16_000, 16_000, 3, null, null)).extracting(StallResponseDTO::getId)
+                .containsExactly(25L, 20L, 24L);
+        assertThat(hall.findNearest(Integer.MIN_VALUE, Integer.MIN_VALUE, 1, null, null)).extracting(StallResponseDTO::getId)
+                .containsExactly(1L);
+        assertThat(System.nanoTime() - started).isLessThan(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void followsMovedAndRemovedStalls() {
+        StallResponseDTO moved = stall(1L, 500, 500, StallModel.StallSize.LARGE, StallModel.StallStatus.AVAILABLE);
+        stalls.set(0, moved);
+        index.put(moved);
+        index.remove(2L);
+        stalls.remove(1);
+
+        assertThat(index.findNearest(499, 499, 1, null, null)).containsExactly(moved);
+        assertThat(index.get(2L)).isNull();
+        assertThat(index.findInArea(-100, 600, -100, 600, null, null))
+                .containsExactlyElementsOf(scanArea(-100, 600, -100, 600, null, null));
+        assertThat(index.findNearest(10, 10, 20, null, null))
+                .containsExactlyElementsOf(scanNearest(10, 10, 20, null, null));
+    }
+
+    private List<StallResponseDTO> scanArea(int minX, int maxX, int minY, int maxY,
+                                            StallModel.StallSize size, StallModel.StallStatus status) {
+        return stalls.stream()
+                .filter(stall -> matches(stall, size, status))
+                .filter(stall -> stall.getPositionX() >= minX && stall.getPositionX() <= maxX
+                        && stall.getPositionY() >= minY && stall.getPositionY() <= maxY)
+                .sorted(Comparator.comparing(StallResponseDTO::getStallName))
+                .toList();
+    }
+
+    private List<StallResponseDTO> scanNearest(int x, int y, int limit,
+                                               StallModel.StallSize size, StallModel.StallStatus status) {
+        return stalls.stream()
+                .filter(stall -> matches(stall, size, status))
+                .sorted(Comparator.comparingLong((StallResponseDTO stall) -> squaredDistance(stall, x, y))
+                        .thenComparing(StallResponseDTO::getStallName))
+                .limit(limit)
+                .toList();
+    }
+
+    private static boolean matches(StallResponseDTO stall, StallModel.StallSize size,
+                                   StallModel.StallStatus status) {
+        return (size == null || stall.getSize() == size) && (status == null || stall.getStatus() == status);
+    }
+
+    private static long squaredDistance(StallResponseDTO stall, int x, int y) {
+        long dx = (long) stall.getPositionX() - x;
+        long dy = (long) stall.getPositionY() - y;
+        return dx * dx + dy * dy;
+    }
+
+    // Zero-padded names keep the name tie-break in id order
+    private static StallResponseDTO stall(long id, int x, int y, StallModel.StallSize size,
+                                          StallModel.StallStatus status) {
+        return StallResponseDTO.builder()
+                .id(id)
+                .stallName(String.format("S-%03d", id))
+                .size(size)
+                .status(status)
+                .positionX(x)
+                .positionY(y)
+                .build();
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -14,16 +15,21 @@ public class UserController {
     
     private final UserService userService;
     
+    // Duplicate users (409), a saturated hashing pool (429) and other failures (400) are
+    // answered by GlobalExceptionHandler
     @PostMapping("/register")
     public ResponseEntity<ApiResponse> registerUser(@Valid @RequestBody RegisterRequest request) {
-        try {
-            AuthResponse response = userService.registerUser(request);
-            return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(new ApiResponse(true, "User registered successfully", response));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(new ApiResponse(false, e.getMessage()));
-        }
+        AuthResponse response = userService.registerUser(request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(new ApiResponse(true, "User registered successfully", response));
+    }
+    
+    // Staff only (see SecurityConfig); for importing exhibitor lists
+    @PostMapping("/bulk-register")
+    public ResponseEntity<ApiResponse> registerUsers(@Valid @RequestBody BulkRegisterRequest request) {
+        BulkRegisterResponse response = userService.registerUsers(request.getUsers());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(new ApiResponse(true, response.getCreated().size() + " users registered", response));
     }
     
     @PostMapping("/login")
@@ -31,7 +37,7 @@ public class UserController {
         try {
             AuthResponse response = userService.loginUser(request);
             return ResponseEntity.ok(new ApiResponse(true, "Login successful", response));
-        } catch (Exception e) {
+        } catch (AuthenticationException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new ApiResponse(false, "Invalid username or password"));
         }
@@ -72,6 +78,21 @@ public class UserController {
     
     @PostMapping("/logout")
     public ResponseEntity<ApiResponse> logoutUser() {
+        userService.logoutUser();
         return ResponseEntity.ok(new ApiResponse(true, "Logout successful"));
     }
-}
\ No newline at end of file
+    
+    @PutMapping("/password")
+    public ResponseEntity<ApiResponse> changePassword(@Valid @RequestBody ChangePasswordRequest request) {
+        AuthResponse response = userService.changePassword(request);
+        return ResponseEntity.ok(new ApiResponse(true, "Password changed successfully", response));
+    }
+    
+    // Staff only (see SecurityConfig)
+    @PutMapping("/{userId}/role")
+    public ResponseEntity<ApiResponse> changeRole(@PathVariable String userId,
+                                                  @Valid @RequestBody ChangeRoleRequest request) {
+        UserResponse response = userService.changeRole(userId, request);
+        return ResponseEntity.ok(new ApiResponse(true, "Role changed successfully", response));
+    }
+}
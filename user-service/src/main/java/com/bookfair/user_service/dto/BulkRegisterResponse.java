@@ -0,0 +1,25 @@
+package com.bookfair.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRegisterResponse {
+    private List<UserResponse> created;
+    private List<Rejected> rejected;
+    
+    // index is the position of the entry in the request
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rejected {
+        private int index;
+        private String username;
+        private String reason;
+    }
+}
@@ -0,0 +1,15 @@
+package com.bookfair.user_service.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeRoleRequest {
+    
+    @NotBlank(message = "Role is required")
+    private String role;
+}
@@ -12,6 +12,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -20,19 +21,26 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "users")
+// Registration relies on these constraints; UserService maps a violation back to the field by name
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"),
+        @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
     
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     @Column(columnDefinition = "UUID")
     private UUID userId;
     
     @NotBlank(message = "Username is required")
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String username;
     
     @NotBlank(message = "Password is required")
@@ -41,7 +49,7 @@ public class User {
     
     @Email(message = "Email should be valid")
     @NotBlank(message = "Email is required")
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
     
     @NotBlank(message = "Role is required")
@@ -56,6 +64,10 @@ public class User {
     @Column(nullable = false)
     private String contactNumber;
     
+    // Bumped to invalidate every token issued before; tokens carry it as the "ver" claim
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private Integer tokenVersion = 0;
+    
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
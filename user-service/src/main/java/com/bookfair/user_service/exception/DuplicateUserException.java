@@ -0,0 +1,18 @@
+package com.bookfair.user_service.exception;
+
+/**
+ * A registration collided with an existing user on {@link #getField()} ("username" or "email").
+ */
+public class DuplicateUserException extends RuntimeException {
+
+    private final String field;
+
+    public DuplicateUserException(String field) {
+        super(("email".equals(field) ? "Email" : "Username") + " already exists");
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+}
@@ -1,6 +1,7 @@
 package com.bookfair.user_service.exception;
 
 import com.bookfair.user_service.dto.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -27,6 +28,19 @@ public class GlobalExceptionHandler {
                 .body(new ApiResponse(false, "Validation failed", errors));
     }
     
+    @ExceptionHandler(DuplicateUserException.class)
+    public ResponseEntity<ApiResponse> handleDuplicateUser(DuplicateUserException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ApiResponse(false, ex.getMessage(), Map.of("field", ex.getField())));
+    }
+    
+    @ExceptionHandler(HashingOverloadedException.class)
+    public ResponseEntity<ApiResponse> handleHashingOverloaded(HashingOverloadedException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ApiResponse(false, ex.getMessage()));
+    }
+    
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ApiResponse> handleRuntimeException(RuntimeException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
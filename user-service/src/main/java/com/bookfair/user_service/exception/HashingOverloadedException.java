@@ -0,0 +1,19 @@
+package com.bookfair.user_service.exception;
+
+/**
+ * Thrown when the password hashing queue is full. Answered with 429 and a Retry-After of
+ * {@link #getRetryAfterSeconds()}.
+ */
+public class HashingOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public HashingOverloadedException(long retryAfterSeconds) {
+        super("Too many sign-in requests, please retry in " + retryAfterSeconds + " seconds");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
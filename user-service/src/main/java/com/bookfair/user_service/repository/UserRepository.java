@@ -1,10 +1,18 @@
 package com.bookfair.user_service.repository;
 
 import com.bookfair.user_service.entity.User;
+import com.bookfair.user_service.security.TokenState;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
@@ -16,4 +24,27 @@ public interface UserRepository extends JpaRepository<User, String> {
     boolean existsByUsername(String username);
     
     boolean existsByEmail(String email);
+    
+    List<User> findByUsernameInOrEmailIn(Collection<String> usernames, Collection<String> emails);
+    
+    @Query("select new com.bookfair.user_service.security.TokenState(u.tokenVersion, u.role) " +
+           "from User u where u.userId = :userId")
+    Optional<TokenState> findTokenStateByUserId(@Param("userId") UUID userId);
+    
+    // Revokes every token issued so far; runs in the caller's transaction
+    @Modifying
+    @Query("update User u set u.tokenVersion = u.tokenVersion + 1 where u.userId = :userId")
+    int incrementTokenVersion(@Param("userId") UUID userId);
+    
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :password, u.tokenVersion = u.tokenVersion + 1 where u.userId = :userId")
+    int updatePasswordAndRevokeTokens(@Param("userId") UUID userId, @Param("password") String password);
+    
+    // Only replaces the hash the caller verified; a password changed in the meantime is left alone
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :password where u.username = :username and u.password = :oldPassword")
+    int updatePasswordByUsername(@Param("username") String username, @Param("oldPassword") String oldPassword,
+                                 @Param("password") String password);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.bookfair.user_service.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.util.UUID;
+
+/**
+ * Principal built from verified token claims, without loading the user from the database.
+ */
+public record AuthenticatedUser(UUID userId, String username, String role) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -5,6 +5,7 @@ import com.bookfair.user_service.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,7 +14,7 @@ import java.util.Collections;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     
     private final UserRepository userRepository;
     
@@ -28,4 +29,17 @@ public class CustomUserDetailsService implements UserDetailsService {
                 Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole()))
         );
     }
-}
\ No newline at end of file
+    
+    // Called after a successful login whose stored hash used a lower cost than configured. The
+    // rehash is conditional on the hash that login verified, so a concurrent password change wins
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        if (userRepository.updatePasswordByUsername(userDetails.getUsername(), userDetails.getPassword(),
+                newPassword) == 0) {
+            return userDetails;
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newPassword)
+                .build();
+    }
+}
@@ -1,11 +1,14 @@
 package com.bookfair.user_service.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -13,13 +16,26 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.UUID;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenVersionCache tokenVersionCache;
+    private final boolean statelessAuth;
+    
+    public JwtAuthenticationFilter(JwtUtil jwtUtil,
+                                   CustomUserDetailsService userDetailsService,
+                                   TokenVersionCache tokenVersionCache,
+                                   @Value("${jwt.stateless-auth:true}") boolean statelessAuth) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.tokenVersionCache = tokenVersionCache;
+        this.statelessAuth = statelessAuth;
+    }
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -36,17 +52,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         
         jwt = authHeader.substring(7);
-        username = jwtUtil.extractUsername(jwt);
+        final Claims claims;
+        try {
+            // Single signature check per token; repeat requests hit the verified-claims cache
+            claims = jwtUtil.extractAllClaims(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        username = claims.getSubject();
         
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            
-            if (jwtUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
+            UsernamePasswordAuthenticationToken authToken = statelessAuth
+                    ? authenticateFromClaims(claims, username)
+                    : authenticateFromDatabase(claims, username);
+            if (authToken != null) {
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
@@ -54,4 +74,54 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+    
+    // The token already carries userId and role; only revocation is checked, from the cache
+    private UsernamePasswordAuthenticationToken authenticateFromClaims(Claims claims, String username) {
+        String userId = claims.get("userId", String.class);
+        String role = claims.get("role", String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+        
+        AuthenticatedUser principal;
+        try {
+            principal = new AuthenticatedUser(UUID.fromString(userId), username, role);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!tokenVersionCache.isCurrent(principal.userId(), jwtUtil.extractTokenVersion(claims), role)) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
+        );
+    }
+    
+    private UsernamePasswordAuthenticationToken authenticateFromDatabase(Claims claims, String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (!jwtUtil.validateToken(claims, userDetails) || isRevoked(claims)) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+    }
+    
+    // Same revocation rule as the stateless path: the version and role must match the user's current ones
+    private boolean isRevoked(Claims claims) {
+        String userId = claims.get("userId", String.class);
+        if (userId == null) {
+            return true;
+        }
+        try {
+            return !tokenVersionCache.isCurrent(UUID.fromString(userId), jwtUtil.extractTokenVersion(claims),
+                    claims.get("role", String.class));
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+}
@@ -1,19 +1,29 @@
 package com.bookfair.user_service.security;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 
 import javax.crypto.SecretKey;
 
+import jakarta.annotation.PostConstruct;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -27,9 +37,21 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
     
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${jwt.claims-cache.max-entries:10000}")
+    private int claimsCacheMaxEntries;
+    
+    // Derived once; both the key and the parser are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private final ConcurrentHashMap<String, VerifiedClaims> verifiedClaims = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
     
     public String extractUsername(String token) {
@@ -45,37 +67,96 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
     
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verified claims of a token. A token's signature is checked once; later calls are served
+     * from a bounded cache keyed by the token's SHA-256, so the cache never holds the bearer
+     * credential itself, until the token expires. The cache holds an
+     * unmodifiable snapshot and every caller gets its own copy, so nothing a caller does to the
+     * returned claims can leak into another request.
+     */
+    public Claims extractAllClaims(String token) {
+        long now = System.currentTimeMillis();
+        String key = hash(token);
+        VerifiedClaims cached = verifiedClaims.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                return Jwts.claims(cached.claims());
+            }
+            verifiedClaims.remove(key, cached);
+        }
+        
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : now + expiration;
+        verifiedClaims.put(key, new VerifiedClaims(Collections.unmodifiableMap(new HashMap<>(claims)), expiresAt));
+        if (verifiedClaims.size() > claimsCacheMaxEntries) {
+            evict(now);
+        }
+        return claims;
+    }
+    
+    // Drops expired entries, then arbitrary ones until back under the bound; one thread at a time, others skip
+    private void evict(long now) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            verifiedClaims.values().removeIf(entry -> entry.expiresAt() <= now);
+            Iterator<String> keys = verifiedClaims.keySet().iterator();
+            while (verifiedClaims.size() > claimsCacheMaxEntries && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
     
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private Boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
     
-    public String generateToken(String username, UUID userId, String role) {
+    public String generateToken(String username, UUID userId, String role, Integer tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("role", role);
+        claims.put("ver", tokenVersion != null ? tokenVersion : 0);
         return createToken(claims, username);
     }
     
+    // Tokens issued before versioning carry no "ver" claim and count as version 0
+    public int extractTokenVersion(Claims claims) {
+        Integer version = claims.get("ver", Integer.class);
+        return version != null ? version : 0;
+    }
+    
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(extractAllClaims(token), userDetails);
+    }
+    
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        final String username = claims.getSubject();
+        return (username.equals(userDetails.getUsername()) && !isTokenExpired(claims));
+    }
+    
+    private record VerifiedClaims(Map<String, Object> claims, long expiresAt) {
     }
 }
\ No newline at end of file
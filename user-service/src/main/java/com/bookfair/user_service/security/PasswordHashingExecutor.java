@@ -0,0 +1,114 @@
+package com.bookfair.user_service.security;
+
+import com.bookfair.user_service.exception.HashingOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt on a fixed pool sized to the CPUs instead of on request threads, so a login rush
+ * cannot take every core and starve cheap requests. The queue in front of the pool is bounded;
+ * once it is full new work is refused with {@link HashingOverloadedException}, whose Retry-After
+ * is estimated from the queue depth and the recent hash time.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final Timer queueWait;
+    private final Timer hashTime;
+    private final Counter rejected;
+    // Moving average of recent hash times, for the Retry-After estimate
+    private volatile double averageHashMillis = 100;
+
+    public PasswordHashingExecutor(@Value("${auth.hashing.threads:0}") int threads,
+                                   @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+                                   MeterRegistry meterRegistry) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("auth.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Password hashing jobs waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing jobs running")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("auth.hashing.queue.wait")
+                .description("Time a hashing job waited for a thread")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.hashTime = Timer.builder("auth.hashing.duration")
+                .description("Time spent hashing or checking one password")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.hashing.rejected")
+                .description("Hashing jobs refused because the queue was full")
+                .register(meterRegistry);
+    }
+
+    public <T> T run(Supplier<T> hashing) {
+        long submittedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return hashing.get();
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    hashTime.record(elapsed, TimeUnit.NANOSECONDS);
+                    averageHashMillis = averageHashMillis * 0.9 + elapsed / 1_000_000.0 * 0.1;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new HashingOverloadedException(retryAfterSeconds());
+        }
+
+        // The queue is bounded, so this wait is too
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(false);
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Time for the work already queued to drain, rounded up to whole seconds
+    private long retryAfterSeconds() {
+        double backlog = executor.getQueue().size() + executor.getActiveCount();
+        return Math.max(1, (long) Math.ceil(backlog * averageHashMillis / threads / 1000));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
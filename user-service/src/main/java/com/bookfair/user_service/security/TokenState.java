@@ -0,0 +1,7 @@
+package com.bookfair.user_service.security;
+
+/**
+ * The parts of a user a token must still agree with: its version and the role it grants.
+ */
+public record TokenState(Integer tokenVersion, String role) {
+}
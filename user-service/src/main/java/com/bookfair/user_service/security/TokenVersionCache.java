@@ -0,0 +1,74 @@
+package com.bookfair.user_service.security;
+
+import com.bookfair.user_service.entity.User;
+import com.bookfair.user_service.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Current token version and role per user, so a token can be checked for revocation without a
+ * query per request. Entries are refreshed when this service commits a change to a user and otherwise
+ * re-read after the TTL, which bounds how long an out-of-band change takes to apply. A token
+ * is rejected once its user is gone, its version is stale or its role no longer matches.
+ */
+@Component
+public class TokenVersionCache {
+
+    private final UserRepository userRepository;
+    private final ConcurrentHashMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+
+    public TokenVersionCache(UserRepository userRepository,
+                             @Value("${jwt.version-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public boolean isCurrent(UUID userId, int tokenVersion, String role) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(userId);
+        if (entry == null || entry.loadedAt() + ttlMillis <= now) {
+            entry = new Entry(userRepository.findTokenStateByUserId(userId).orElse(null), now);
+            entries.put(userId, entry);
+        }
+
+        TokenState state = entry.state();
+        return state != null
+                && Objects.equals(state.tokenVersion(), tokenVersion)
+                && Objects.equals(state.role(), role);
+    }
+
+    public void refresh(User user) {
+        TokenState state = new TokenState(user.getTokenVersion(), user.getRole());
+        afterCommit(() -> entries.put(user.getUserId(), new Entry(state, System.currentTimeMillis())));
+    }
+    
+    // The next check re-reads the user, e.g. after a bulk update that did not load the entity
+    public void evict(UUID userId) {
+        afterCommit(() -> entries.remove(userId));
+    }
+    
+    // Inside a transaction the change is applied on commit, so a concurrent check cannot cache
+    // the pre-commit row and a rolled back change never reaches the cache
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Entry(TokenState state, long loadedAt) {
+    }
+}
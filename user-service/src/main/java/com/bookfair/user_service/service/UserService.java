@@ -1,5 +1,12 @@
 package com.bookfair.user_service.service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -9,13 +16,18 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.bookfair.user_service.dto.AuthResponse;
+import com.bookfair.user_service.dto.BulkRegisterResponse;
+import com.bookfair.user_service.dto.ChangePasswordRequest;
+import com.bookfair.user_service.dto.ChangeRoleRequest;
 import com.bookfair.user_service.dto.LoginRequest;
 import com.bookfair.user_service.dto.RegisterRequest;
 import com.bookfair.user_service.dto.UpdateProfileRequest;
 import com.bookfair.user_service.dto.UserResponse;
 import com.bookfair.user_service.entity.User;
+import com.bookfair.user_service.exception.DuplicateUserException;
 import com.bookfair.user_service.repository.UserRepository;
 import com.bookfair.user_service.security.JwtUtil;
+import com.bookfair.user_service.security.TokenVersionCache;
 
 import lombok.RequiredArgsConstructor;
 
@@ -27,32 +39,21 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final TokenVersionCache tokenVersionCache;
     
-    @Transactional
+    // One INSERT: uniqueness is enforced by the users table constraints instead of lookups first.
+    // Not @Transactional, so no pooled connection is held while the password is hashed.
     public AuthResponse registerUser(RegisterRequest request) {
-        // Check if username already exists
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("Username already exists");
-        }
-        
-        // Check if email already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email already exists");
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(newUser(request));
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicate(e);
         }
         
-        // Create new user
-        User user = new User();
-        user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setEmail(request.getEmail());
-        user.setRole(request.getRole());
-        user.setBusinessName(request.getBusinessName());
-        user.setContactNumber(request.getContactNumber());
-        
-        User savedUser = userRepository.save(user);
-        
         // Generate JWT token
-        String token = jwtUtil.generateToken(savedUser.getUsername(), savedUser.getUserId(), savedUser.getRole());
+        String token = jwtUtil.generateToken(savedUser.getUsername(), savedUser.getUserId(), savedUser.getRole(),
+                savedUser.getTokenVersion());
         
         return new AuthResponse(
                 token,
@@ -64,6 +65,85 @@ public class UserService {
         );
     }
     
+    /**
+     * Registers a list of users in one transaction with JDBC-batched inserts. Entries whose
+     * username or email is already taken, or repeated earlier in the list, are reported back
+     * instead of failing the whole import. Passwords are hashed one at a time on the hashing
+     * pool, leaving its other threads to logins, and before the insert transaction starts.
+     */
+    public BulkRegisterResponse registerUsers(List<RegisterRequest> requests) {
+        Set<String> takenUsernames = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        for (User existing : userRepository.findByUsernameInOrEmailIn(
+                requests.stream().map(RegisterRequest::getUsername).toList(),
+                requests.stream().map(RegisterRequest::getEmail).toList())) {
+            takenUsernames.add(existing.getUsername());
+            takenEmails.add(existing.getEmail());
+        }
+        
+        List<User> users = new ArrayList<>(requests.size());
+        List<BulkRegisterResponse.Rejected> rejected = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            RegisterRequest request = requests.get(i);
+            if (!takenUsernames.add(request.getUsername())) {
+                rejected.add(new BulkRegisterResponse.Rejected(i, request.getUsername(), "Username already exists"));
+            } else if (!takenEmails.add(request.getEmail())) {
+                takenUsernames.remove(request.getUsername());
+                rejected.add(new BulkRegisterResponse.Rejected(i, request.getUsername(), "Email already exists"));
+            } else {
+                users.add(newUser(request));
+            }
+        }
+        
+        List<User> savedUsers;
+        try {
+            savedUsers = userRepository.saveAllAndFlush(users);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent registration took one of the names after the check above
+            throw translateDuplicate(e);
+        }
+        return new BulkRegisterResponse(savedUsers.stream().map(UserService::toResponse).toList(), rejected);
+    }
+    
+    private User newUser(RegisterRequest request) {
+        User user = new User();
+        user.setUsername(request.getUsername());
+        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setEmail(request.getEmail());
+        user.setRole(request.getRole());
+        user.setBusinessName(request.getBusinessName());
+        user.setContactNumber(request.getContactNumber());
+        return user;
+    }
+    
+    // Maps a unique-constraint violation to the field that collided; anything else is rethrown as is
+    private static RuntimeException translateDuplicate(DataIntegrityViolationException e) {
+        String detail = String.valueOf(e.getMostSpecificCause().getMessage());
+        if (e.getCause() instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+            detail = violation.getConstraintName() + " " + detail;
+        }
+        detail = detail.toLowerCase();
+        // Postgres reports "Key (email)=(...) already exists", which also covers constraints created before they were named
+        if (detail.contains(User.USERNAME_CONSTRAINT) || detail.contains("(username)")) {
+            return new DuplicateUserException("username");
+        }
+        if (detail.contains(User.EMAIL_CONSTRAINT) || detail.contains("(email)")) {
+            return new DuplicateUserException("email");
+        }
+        return e;
+    }
+    
+    private static UserResponse toResponse(User user) {
+        return new UserResponse(
+                user.getUserId().toString(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getRole(),
+                user.getBusinessName(),
+                user.getContactNumber()
+        );
+    }
+    
     public AuthResponse loginUser(LoginRequest request) {
         // Authenticate user
         Authentication authentication = authenticationManager.authenticate(
@@ -75,7 +155,7 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         // Generate JWT token
-        String token = jwtUtil.generateToken(user.getUsername(), user.getUserId(), user.getRole());
+        String token = jwtUtil.generateToken(user.getUsername(), user.getUserId(), user.getRole(), user.getTokenVersion());
         
         return new AuthResponse(
                 token,
@@ -113,44 +193,84 @@ public class UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        tokenVersionCache.refresh(updatedUser);
         
-        return new UserResponse(
+        return toResponse(updatedUser);
+    }
+    
+    /**
+     * Revokes every token the caller holds, including the one used for this request.
+     */
+    @Transactional
+    public void logoutUser() {
+        User user = currentUser();
+        userRepository.incrementTokenVersion(user.getUserId());
+        tokenVersionCache.evict(user.getUserId());
+    }
+    
+    /**
+     * Changes the caller's password and revokes their other tokens; the returned token is the
+     * only one still valid. Not @Transactional, so no pooled connection is held while hashing.
+     */
+    public AuthResponse changePassword(ChangePasswordRequest request) {
+        User user = currentUser();
+        if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
+            throw new RuntimeException("Current password is incorrect");
+        }
+        
+        userRepository.updatePasswordAndRevokeTokens(user.getUserId(),
+                passwordEncoder.encode(request.getNewPassword()));
+        User updatedUser = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        tokenVersionCache.refresh(updatedUser);
+        
+        String token = jwtUtil.generateToken(updatedUser.getUsername(), updatedUser.getUserId(),
+                updatedUser.getRole(), updatedUser.getTokenVersion());
+        return new AuthResponse(
+                token,
                 updatedUser.getUserId().toString(),
                 updatedUser.getUsername(),
                 updatedUser.getEmail(),
                 updatedUser.getRole(),
-                updatedUser.getBusinessName(),
-                updatedUser.getContactNumber()
+                "Password changed successfully"
         );
     }
     
+    /**
+     * Staff only. Tokens issued under the old role stop working at once.
+     */
+    @Transactional
+    public UserResponse changeRole(String userId, ChangeRoleRequest request) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        user.setRole(request.getRole());
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        User updatedUser = userRepository.save(user);
+        tokenVersionCache.refresh(updatedUser);
+        
+        return toResponse(updatedUser);
+    }
+    
+    private User currentUser() {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+    
     public UserResponse getUserDetails() {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        return new UserResponse(
-                user.getUserId().toString(),
-                user.getUsername(),
-                user.getEmail(),
-                user.getRole(),
-                user.getBusinessName(),
-                user.getContactNumber()
-        );
+        return toResponse(user);
     }
     
     public UserResponse getUserById(String userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        return new UserResponse(
-                user.getUserId().toString(),
-                user.getUsername(),
-                user.getEmail(),
-                user.getRole(),
-                user.getBusinessName(),
-                user.getContactNumber()
-        );
+        return toResponse(user);
     }
 }
\ No newline at end of file